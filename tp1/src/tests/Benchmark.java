@@ -0,0 +1,163 @@
+package tests;
+
+import tp1.*;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Mesures de debit du moteur de formes. Chaque cas est execute pendant une periode de
+// rechauffement, puis pendant plusieurs iterations mesurees; on affiche le temps par
+// operation et les octets alloues par operation (compteur d'allocation du thread de
+// HotSpot), ce qui permet de voir une regression dans les chemins chauds.
+// Usage: java tests.Benchmark [filtre] ; seuls les cas dont le nom contient le filtre sont executes.
+public final class Benchmark {
+    private static final long WARMUP_NANOS = 500_000_000L;
+    private static final int ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 200_000_000L;
+
+    // Empeche le JIT d'eliminer les resultats inutilises.
+    private static volatile long sink;
+
+    private interface Operation {
+        long run() throws Exception;
+    }
+
+    private static final class Case {
+        final String name;
+        final Operation operation;
+
+        Case(String name, Operation operation) {
+            this.name = name;
+            this.operation = operation;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String filter = args.length > 0 ? args[0] : "";
+        File directory = Files.createTempDirectory("benchmark").toFile();
+        directory.deleteOnExit();
+        System.out.println(String.format(Locale.ROOT, "%-36s %14s %14s %12s", "cas", "ns/op", "octets/op", "Mo/s"));
+        for (Case benchmark : cases(directory)) {
+            if (benchmark.name.contains(filter)) {
+                measure(benchmark);
+            }
+        }
+    }
+
+    // Execute chaque cas une seule fois, sans mesure; utilise par OptimisationTester pour
+    // verifier que les cas fonctionnent encore.
+    static int runOnce(File directory) throws Exception {
+        List<Case> cases = cases(directory);
+        long result = 0;
+        for (Case benchmark : cases) {
+            result += benchmark.operation.run();
+        }
+        sink = result;
+        return cases.size();
+    }
+
+    private static List<Case> cases(File directory) {
+        List<Case> cases = new ArrayList<>();
+        Point2d point = new Point2d(12.3, -4.5);
+        Point2d offset = new Point2d(1.0, 2.0);
+        Double[][] rotation = { {0.0, -1.0}, {1.0, 0.0} };
+        cases.add(new Case("Point2d.translate", () -> (long) point.translate(offset).X()));
+        cases.add(new Case("Point2d.rotate(angle)", () -> (long) point.rotate(0.3).X()));
+        cases.add(new Case("Point2d.rotate(matrice)", () -> (long) point.rotate(rotation).Y()));
+        cases.add(new Case("Point2d.hashCode", () -> point.hashCode()));
+
+        BaseShape letter = LetterFactory.create_H();
+        cases.add(new Case("BaseShape.translate", () -> letter.translate(offset).getBounds().hashCode()));
+        cases.add(new Case("BaseShape.translate+points", () -> letter.translate(offset).getCoordsView().size()));
+        cases.add(new Case("BaseShape.rotate+points", () -> letter.rotate(0.3).getCoordsView().size()));
+        cases.add(new Case("BaseShape.add", () -> {
+            BaseShape shape = LetterFactory.create_l();
+            shape.add(letter);
+            return shape.getCoordsView().size();
+        }));
+        cases.add(new Case("BaseShape.removeAll", () -> {
+            BaseShape shape = LetterFactory.create_o();
+            shape.removeAll(Ellipse.ellipseParametricEquationPoints(50.0, 100.0, 100.0, 0.0, Math.PI));
+            return shape.getCoordsView().size();
+        }));
+        cases.add(new Case("BaseShape.getCoords", () -> letter.getCoords().size()));
+
+        cases.add(new Case("LetterFactory.create_H", () -> LetterFactory.create_H().getCoordsView().size()));
+        cases.add(new Case("LetterFactory.create_e", () -> LetterFactory.create_e().getCoordsView().size()));
+        cases.add(new Case("LetterFactory.create_l", () -> LetterFactory.create_l().getCoordsView().size()));
+        cases.add(new Case("LetterFactory.create_o", () -> LetterFactory.create_o().getCoordsView().size()));
+        cases.add(new Case("LetterFactory.create_W", () -> LetterFactory.create_W().getCoordsView().size()));
+        cases.add(new Case("LetterFactory.create_r", () -> LetterFactory.create_r().getCoordsView().size()));
+        cases.add(new Case("LetterFactory.create_d", () -> LetterFactory.create_d().getCoordsView().size()));
+
+        // Canevas de 1, 4 et 16 lignes de "Hello World".
+        for (int lines : new int[] { 1, 4, 16 }) {
+            String fileName = new File(directory, "lines" + lines).getPath();
+            new File(fileName + ".jpg").deleteOnExit();
+            new File(fileName + ".ppm").deleteOnExit();
+            cases.add(new Case("LetterPlacer.saveImage/" + lines, () ->
+                    placeLines(lines).saveImage(fileName, true).length()));
+            cases.add(new Case("LetterPlacer.saveRawImage/" + lines, () ->
+                    placeLines(lines).saveRawImage(fileName, true).length()));
+        }
+        return cases;
+    }
+
+    private static LetterPlacer placeLines(int lines) throws Exception {
+        LetterPlacer letterPlacer = new LetterPlacer();
+        for (int line = 0; line < lines; ++line) {
+            String text = "HelloWorld";
+            for (int i = 0; i < text.length(); ++i) {
+                if (i == 0 && line > 0) {
+                    letterPlacer.placeNextln(text.charAt(i));
+                } else {
+                    letterPlacer.placeNext(text.charAt(i));
+                }
+            }
+        }
+        return letterPlacer;
+    }
+
+    private static void measure(Case benchmark) throws Exception {
+        runFor(benchmark.operation, WARMUP_NANOS);
+        double bestNanos = Double.MAX_VALUE;
+        double bytes = 0;
+        for (int i = 0; i < ITERATIONS; ++i) {
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            long operations = runFor(benchmark.operation, ITERATION_NANOS);
+            long elapsed = System.nanoTime() - start;
+            long allocated = allocatedBytes() - allocatedBefore;
+            bestNanos = Math.min(bestNanos, (double) elapsed / operations);
+            bytes += (double) allocated / operations / ITERATIONS;
+        }
+        double megabytesPerSecond = bytes / bestNanos * 1e9 / (1 << 20);
+        System.out.println(String.format(Locale.ROOT, "%-36s %14.1f %14.0f %12.1f",
+                benchmark.name, bestNanos, bytes, megabytesPerSecond));
+    }
+
+    private static long runFor(Operation operation, long nanos) throws Exception {
+        long operations = 0;
+        long result = 0;
+        long end = System.nanoTime() + nanos;
+        do {
+            result += operation.run();
+            ++operations;
+        } while (System.nanoTime() < end);
+        sink = result;
+        return operations;
+    }
+
+    // Octets alloues par le thread courant, ou 0 si la JVM ne fournit pas ce compteur.
+    static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
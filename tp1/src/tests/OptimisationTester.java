@@ -0,0 +1,710 @@
+package tests;
+
+import org.ejml.simple.SimpleMatrix;
+import tp1.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+// Verifications des optimisations. Elles ne font pas partie de la note du laboratoire
+// (voir Tester): chaque verification vaut un point, sur le nombre de verifications.
+// Usage: java tests.OptimisationTester
+public final class OptimisationTester {
+    private static final Map<String, Function<Double, Double>> CHECKS = new LinkedHashMap<>();
+
+    static {
+        CHECKS.put("pointCloud", OptimisationTester::pointCloud);
+        CHECKS.put("roundedHashing", OptimisationTester::roundedHashing);
+        CHECKS.put("batchKernels", OptimisationTester::batchKernels);
+        CHECKS.put("points3d", OptimisationTester::points3d);
+        CHECKS.put("copyOnWrite", OptimisationTester::copyOnWrite);
+        CHECKS.put("transformChain", OptimisationTester::transformChain);
+        CHECKS.put("glyphCache", OptimisationTester::glyphCache);
+        CHECKS.put("glyphRegistry", OptimisationTester::glyphRegistry);
+        CHECKS.put("glyphPlacement", OptimisationTester::glyphPlacement);
+        CHECKS.put("incrementalBounds", OptimisationTester::incrementalBounds);
+        CHECKS.put("streamingPlacer", OptimisationTester::streamingPlacer);
+        CHECKS.put("pixelSet", OptimisationTester::pixelSet);
+        CHECKS.put("sparsePixels", OptimisationTester::sparsePixels);
+        CHECKS.put("translatedRendering", OptimisationTester::translatedRendering);
+        CHECKS.put("scanline", OptimisationTester::scanline);
+        CHECKS.put("spanRounding", OptimisationTester::spanRounding);
+        CHECKS.put("deviceMargin", OptimisationTester::deviceMargin);
+        CHECKS.put("pointCursor", OptimisationTester::pointCursor);
+        CHECKS.put("parallelSampling", OptimisationTester::parallelSampling);
+        CHECKS.put("shapeIndex", OptimisationTester::shapeIndex);
+        CHECKS.put("mappedRaster", OptimisationTester::mappedRaster);
+        CHECKS.put("imagePipeline", OptimisationTester::imagePipeline);
+        CHECKS.put("benchmarkCases", OptimisationTester::benchmarkCases);
+    }
+
+    public static void main(String[] args) {
+        Tester.runner("OptimisationTester", OptimisationTester::start, (double) CHECKS.size());
+    }
+
+    public static Double start(Double value) {
+        Double passed = 0.0;
+        for (Map.Entry<String, Function<Double, Double>> check : CHECKS.entrySet()) {
+            passed += Tester.runner(check.getKey(), check.getValue(), 1.0);
+        }
+        return passed;
+    }
+
+    // Les transformations du nuage donnent les memes points que PointOperator, point par point,
+    // et les doublons ne sont retires que sur demande.
+    private static Double pointCloud(Double value) {
+        double[][] raw = { {1.0, 5.0}, {-3.0, 2.0}, {1.2, 4.8} };
+        PointCloud cloud = new PointCloud();
+        for (double[] point : raw) {
+            cloud.add(point[0], point[1]);
+        }
+        cloud.rotate(Math.toRadians(90));
+        cloud.translate(10.0, 0.0);
+        cloud.scale(2.0);
+        Double[][] rotation = {
+                {Math.cos(Math.toRadians(90)), -Math.sin(Math.toRadians(90))},
+                {Math.sin(Math.toRadians(90)), Math.cos(Math.toRadians(90))}
+        };
+        boolean same = cloud.size() == raw.length;
+        for (int i = 0; same && i < raw.length; ++i) {
+            Double[] expected = PointOperator.rotate(new Double[] { raw[i][0], raw[i][1] }, rotation);
+            PointOperator.multiply(PointOperator.translate(expected, new Double[] { 10.0, 0.0 }), 2.0);
+            same = Math.abs(cloud.x(i) - expected[0]) < 1e-9 && Math.abs(cloud.y(i) - expected[1]) < 1e-9;
+        }
+        // (1, 5) et (1.2, 4.8) tombent sur le meme pixel (10, 2).
+        cloud.removeDuplicates();
+        boolean deduplicated = cloud.size() == 2
+                && cloud.toSet().equals(new HashSet<>(Arrays.asList(new Point2d(10.0, 2.0), new Point2d(16.0, -6.0))));
+        List<Point2d> points = Arrays.asList(new Point2d(1.0, 5.0), new Point2d(1.2, 4.8));
+        BaseShape shape = new BaseShape(points);
+        boolean kept = shape.getCoordsView().size() == 2;
+        shape.removeDuplicates();
+        return same && deduplicated && kept && shape.getCoordsView().size() == 1 ? value : 0.0;
+    }
+
+    // Deux points sont egaux, et ont le meme hashCode, si leurs coordonnees arrondies le sont,
+    // comme avec l'ancien hashCode base sur toString. Le calcul ne cree aucun objet.
+    private static Double roundedHashing(Double value) {
+        Point2d[][] equal = {
+                { new Point2d(1.2, 3.4), new Point2d(0.6, 2.6) },
+                { new Point2d(0.5, -0.5), new Point2d(1.0, 0.0) },
+                { new Point2d(-0.0, 2.49), new Point2d(0.0, 1.5) }
+        };
+        boolean same = true;
+        for (Point2d[] pair : equal) {
+            same &= pair[0].equals(pair[1]) && pair[0].hashCode() == pair[1].hashCode()
+                    && pair[0].toString().equals(pair[1].toString());
+        }
+        boolean distinct = !new Point2d(0.49, 0.0).equals(new Point2d(0.5, 0.0))
+                && !new Point2d(-0.51, 0.0).equals(new Point2d(-0.5, 0.0));
+        Set<Point2d> set = new HashSet<>(Arrays.asList(new Point2d(1.2, 3.4), new Point2d(0.6, 2.6),
+                new Point2d(1.0, 3.0), new Point2d(2.0, 3.0)));
+        boolean deduplicated = set.size() == 2;
+        Point2d point = new Point2d(12.3, -4.5);
+        Point2d other = new Point2d(12.4, -4.6);
+        long before = Benchmark.allocatedBytes();
+        long hash = 0;
+        for (int i = 0; i < 100_000; ++i) {
+            hash += point.hashCode() + (point.equals(other) ? 1 : 0);
+        }
+        boolean allocationFree = Benchmark.allocatedBytes() - before < 10_000 && hash != 0;
+        return same && distinct && deduplicated && allocationFree ? value : 0.0;
+    }
+
+    private static Double batchKernels(Double value) {
+        Double[][] rotation = { {0.0, -1.0}, {1.0, 0.0} };
+        double[][] primitiveRotation = { {0.0, -1.0}, {1.0, 0.0} };
+        double[] xs = { 1.0, 3.0 };
+        double[] ys = { 2.0, 4.0 };
+        double[] xy = { 1.0, 2.0, 3.0, 4.0 };
+        PointOperator.rotate(xs, ys, 2, primitiveRotation);
+        PointOperator.rotate(xy, 2, primitiveRotation);
+        PointOperator.translate(xs, ys, 2, 10.0, 20.0);
+        PointOperator.translate(xy, 2, 10.0, 20.0);
+        PointOperator.multiply(xy, 4, 2.0);
+        PointOperator.multiply(xs, 2, 2.0);
+        PointOperator.multiply(ys, 2, 2.0);
+        boolean same = true;
+        for (int i = 0; i < 2; ++i) {
+            Double[] expected = PointOperator.rotate(new Double[] { i * 2 + 1.0, i * 2 + 2.0 }, rotation);
+            PointOperator.multiply(PointOperator.translate(expected, new Double[] { 10.0, 20.0 }), 2.0);
+            same &= xs[i] == expected[0] && ys[i] == expected[1]
+                    && xy[2 * i] == expected[0] && xy[2 * i + 1] == expected[1];
+        }
+        return same ? value : 0.0;
+    }
+
+    private static Double points3d(Double value) {
+        Double[][] rawVector = { {1.0, 2.0, 3.0} };
+        Double[][] rawRotate = {
+                {1.0, 2.0, 0.0},
+                {3.0, 4.0, 0.0},
+                {0.0, 0.0, 1.0}
+        };
+        SimpleMatrix vector = new SimpleMatrix(Tester.toPromitive(rawVector));
+        SimpleMatrix rotate = new SimpleMatrix(Tester.toPromitive(rawRotate));
+        SimpleMatrix correctOutput = rotate.mult(vector.transpose()).transpose();
+        Point3d point = new Point3d(rawVector[0]).rotate(rawRotate);
+        PointNd generic = new PointNd(rawVector[0]).rotate(rawRotate);
+        double[] xyz = { 1.0, 2.0, 3.0 };
+        PointOperator.transform(xyz, 3, 1, Tester.toPromitive(rawRotate));
+        boolean same = Tester.isEqual(correctOutput, point.toVector())
+                && Tester.isEqual(correctOutput, generic.toVector())
+                && point.equals(generic) && point.hashCode() == generic.hashCode()
+                && new PointNd(xyz).equals(point);
+        boolean distinct = !new Point2d(1.0, 2.0).equals(new PointNd(1.0, 2.0, 0.0));
+        return same && distinct ? value : 0.0;
+    }
+
+
+    // Une copie partage les points de l'original jusqu'a ce que l'un des deux soit modifie:
+    // les modifications de l'un ne se voient jamais dans l'autre. Les vues ne sont pas modifiables.
+    private static Double copyOnWrite(Double value) {
+        Set<Point2d> rectangle = new Rectangle(4.0, 2.0).getCoords();
+        BaseShape original = new Rectangle(4.0, 2.0);
+        BaseShape copy = original.clone();
+        BaseShape moved = original.translate(new Point2d(1.0, 0.0));
+        Collection<Point2d> view = copy.getCoordsView();
+        original.add(new Point2d(100.0, 100.0));
+        original.remove(new Point2d(-2.0, -1.0));
+        boolean copiesIntact = copy.getCoords().equals(rectangle) && new HashSet<>(view).equals(rectangle)
+                && moved.getCoords().equals(new BaseShape(rectangle).translate(new Point2d(1.0, 0.0)).getCoords());
+        copy.add(new Point2d(-100.0, -100.0));
+        boolean originalIntact = !original.getCoords().contains(new Point2d(-100.0, -100.0))
+                && original.getCoords().contains(new Point2d(100.0, 100.0))
+                && !original.getCoords().contains(new Point2d(-2.0, -1.0));
+        boolean viewFollows = view.contains(new Point2d(-100.0, -100.0));
+        boolean readOnly = false;
+        try {
+            view.add(new Point2d(0.0, 0.0));
+        } catch (UnsupportedOperationException e) {
+            readOnly = true;
+        }
+        return copiesIntact && originalIntact && viewFollows && readOnly ? value : 0.0;
+    }
+
+    // Les transformations enchainees sont seulement composees en une matrice: les points ne
+    // sont calcules qu'a la lecture, avec la rotation, puis la translation, puis l'echelle.
+    private static Double transformChain(Double value) {
+        List<Point2d> list = new ArrayList<>();
+        list.add(new Point2d(1.0, 5.0));
+        list.add(new Point2d(-3.0, 2.0));
+        BaseShape shape = new BaseShape(list);
+        BaseShape chained = shape.rotate(Math.toRadians(90))
+                .translate(new Point2d(10.0, 0.0))
+                .scale(2.0);
+        // p -> 2 (R p + (10, 0))
+        double[][] expected = { {0.0, -2.0, 20.0}, {2.0, 0.0, 0.0} };
+        double[][] matrix = chained.getTransform().getMatrix();
+        boolean deferred = shape.getTransform().isIdentity();
+        for (int i = 0; i < expected.length; ++i) {
+            for (int j = 0; j < expected[i].length; ++j) {
+                deferred &= Math.abs(matrix[i][j] - expected[i][j]) < 1e-9;
+            }
+        }
+        Set<Point2d> points = chained.getCoords();
+        boolean applied = chained.getTransform().isIdentity()
+                && points.equals(new HashSet<>(Arrays.asList(new Point2d(10.0, 2.0), new Point2d(16.0, -6.0))));
+        boolean lazy = shape.getCoords().equals(new HashSet<>(list));
+        return deferred && applied && lazy ? value : 0.0;
+    }
+
+    private static Double glyphCache(Double value) {
+        GlyphCache cache = new GlyphCache(1);
+        try {
+            BaseShape first = cache.get('l');
+            first.add(new Point2d(1000.0, 1000.0));
+            BaseShape second = cache.get('l');
+            cache.get('o');
+            cache.get('l');
+            boolean isolated = !second.getCoords().contains(new Point2d(1000.0, 1000.0));
+            boolean counted = cache.getHitCount() == 1 && cache.getMissCount() == 3
+                    && cache.getEvictionCount() == 2 && cache.size() == 1;
+            return isolated && counted ? value : 0.0;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return 0.0;
+    }
+
+    private static Double glyphRegistry(Double value) {
+        String definitions = "# H et e, comme dans LetterFactory\n"
+                + "glyph H\nrect 20 200 -50 0\nrect 20 100 0 0 90\nrect 20 200 50 0\n"
+                + "glyph e\nellipse 50 100\narc 50 100 0 0.125\nrect 10 100 0 0 90\n"
+                + "glyph 32\n";
+        try {
+            File file = File.createTempFile("glyphs", ".txt");
+            file.deleteOnExit();
+            Files.write(file.toPath(), Arrays.asList(definitions.split("\n")));
+            GlyphRegistry registry = GlyphRegistry.load(file.toPath());
+            boolean same = registry.create('H').getCoords().equals(LetterFactory.create_H().getCoords())
+                    && registry.create('e').getCoords().equals(LetterFactory.create_e().getCoords());
+            boolean space = registry.contains(' ') && registry.create(' ').getCoords().isEmpty();
+            boolean fallback = !registry.contains('o')
+                    && registry.create('o').getCoords().equals(LetterFactory.create_o().getCoords());
+            boolean rejected = false;
+            try {
+                registry.create('\u00e9');
+            } catch (Exception e) {
+                rejected = true;
+            }
+            // Le fichier lu n'est pas garde ouvert.
+            return same && space && fallback && rejected && registry.size() == 3 && file.delete() ? value : 0.0;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return 0.0;
+    }
+
+    // Les lettres du fichier sont placees dans le cadre commun des lettres, et non selon leurs
+    // propres bords: l'apostrophe commence en haut comme le H, le tiret est a mi-hauteur, et
+    // une lettre qui deborde a gauche ne passe pas avant le debut de la ligne.
+    private static Double glyphPlacement(Double value) {
+        GlyphRegistry registry = GlyphRegistry.parse(Arrays.asList(
+                "glyph H", "rect 20 200 -50 0", "rect 20 100 0 0 90", "rect 20 200 50 0",
+                "glyph '", "rect 20 50 0 -75",
+                "glyph -", "rect 20 80 0 0 90",
+                "glyph j", "rect 20 200 0 0", "rect 60 20 -40 90"));
+        try {
+            LetterPlacer letterPlacer = new LetterPlacer();
+            letterPlacer.setGlyphCache(new GlyphCache(GlyphCache.DEFAULT_CAPACITY, registry));
+            letterPlacer.placeNext('H');
+            letterPlacer.placeNext('\'');
+            letterPlacer.placeNext('-');
+            letterPlacer.placeNextln('j');
+            ShapeIndex index = letterPlacer.getShapeIndex();
+            BoundingBox h = index.getBounds(0);
+            BoundingBox apostrophe = index.getBounds(1);
+            BoundingBox dash = index.getBounds(2);
+            BoundingBox j = index.getBounds(3);
+            boolean top = apostrophe.getMinY() == h.getMinY() && apostrophe.getMaxY() < h.getMinY() + h.getHeight() / 2;
+            boolean middle = Math.abs(dash.getMinY() + dash.getMaxY() - h.getMinY() - h.getMaxY()) <= 2.0;
+            boolean left = j.getMinX() >= h.getMinX() && j.getMinY() > h.getMaxY();
+            return top && middle && left ? value : 0.0;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return 0.0;
+    }
+
+    // La boite englobante suivie au fil des ajouts, des retraits et des transformations est
+    // celle qu'on recalcule a partir des points.
+    private static Double incrementalBounds(Double value) {
+        BaseShape shape = new BaseShape(LetterFactory.create_e().getCoords());
+        boolean same = sameBounds(shape);
+        shape.add(new Point2d(500.0, -20.0));
+        same &= sameBounds(shape);
+        shape.remove(new Point2d(500.0, -20.0));
+        same &= sameBounds(shape);
+        BaseShape rectangle = new Rectangle(20.5, 31.0);
+        BaseShape[] transformed = {
+                shape.translate(new Point2d(3.5, -7.0)),
+                shape.scale(1.5),
+                shape.rotate(0.3),
+                shape.rotate(0.3).translate(new Point2d(10.0, 0.0)),
+                rectangle.rotate(0.3).translate(new Point2d(10.0, 0.0))
+        };
+        for (BaseShape other : transformed) {
+            same &= sameBounds(other);
+        }
+        return same ? value : 0.0;
+    }
+
+    // La boite est lue avant les points, pour ne pas la recalculer a partir des points lus.
+    private static boolean sameBounds(BaseShape shape) {
+        BoundingBox bounds = shape.getBounds();
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (Point2d point : shape.getCoordsView()) {
+            minX = Math.min(minX, point.X());
+            minY = Math.min(minY, point.Y());
+            maxX = Math.max(maxX, point.X());
+            maxY = Math.max(maxY, point.Y());
+        }
+        return Math.abs(bounds.getMinX() - minX) < 1e-9 && Math.abs(bounds.getMinY() - minY) < 1e-9
+                && Math.abs(bounds.getMaxX() - maxX) < 1e-9 && Math.abs(bounds.getMaxY() - maxY) < 1e-9;
+    }
+
+    // Les lettres dessinees au fur et a mesure, dans un canevas qui grandit ou deja dimensionne,
+    // donnent la meme image que les lettres dessinees a la fin (en blanc: les couleurs sont
+    // tirees au hasard). Les etiquettes du canevas donnent les memes lettres et les memes
+    // collisions que l'index.
+    private static Double streamingPlacer(Double value) {
+        try {
+            LetterPlacer[] placers = { new LetterPlacer(), new LetterPlacer(true), new LetterPlacer(1200, 600) };
+            for (LetterPlacer letterPlacer : placers) {
+                for (char letter : "Hello".toCharArray()) {
+                    letterPlacer.placeNext(letter);
+                }
+                letterPlacer.placeNextln('W');
+                for (char letter : "orld".toCharArray()) {
+                    letterPlacer.placeNext(letter);
+                }
+            }
+            int[] expected = pixels(placers[0].renderImage(true));
+            boolean same = Arrays.equals(pixels(placers[1].renderImage(true)), expected)
+                    && Arrays.equals(pixels(placers[2].renderImage(true)), expected);
+            boolean labels = true;
+            for (int y = -5; y < 500 && labels; ++y) {
+                for (int x = -5; x < 700 && labels; ++x) {
+                    int letter = placers[0].letterAt(x, y);
+                    labels = placers[1].letterAt(x, y) == letter && placers[2].letterAt(x, y) == letter;
+                }
+            }
+            boolean collisions = true;
+            for (int x = 0; x < 700 && collisions; x += 7) {
+                Point2d position = new Point2d(x, 20.0 + (x % 3) * 100);
+                boolean collides = placers[0].collides('o', position);
+                collisions = placers[1].collides('o', position) == collides
+                        && placers[2].collides('o', position) == collides;
+            }
+            boolean streaming = placers[1].isStreaming() && !placers[0].isStreaming();
+            return same && labels && collisions && streaming ? value : 0.0;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return 0.0;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    private static Double pixelSet(Double value) {
+        PixelSet left = new Rectangle(20.0, 200.0).getPixels();
+        PixelSet right = new Rectangle(20.0, 200.0).translate(new Point2d(-70.0, 0.0)).getPixels();
+        PixelSet union = new PixelSet();
+        union.or(left);
+        union.or(right);
+        boolean joined = union.size() == left.size() + right.size()
+                && union.contains(0, 0) && union.contains(-70, 0);
+        union.andNot(left);
+        boolean removed = union.size() == right.size() && !union.contains(0, 0) && union.contains(-70, 0);
+        BaseShape letter = LetterFactory.create_e();
+        boolean sameAsCoords = letter.getPixels().size() == letter.getCoords().size();
+        return joined && removed && sameAsCoords ? value : 0.0;
+    }
+
+    // Quelques points tres eloignes ne doivent pas creer une matrice de la taille de leur
+    // boite englobante: les operations qui passaient par des ensembles de points marchent encore.
+    private static Double sparsePixels(Double value) {
+        List<Point2d> far = Arrays.asList(new Point2d(0.0, 0.0), new Point2d(200000.0, 200000.0),
+                new Point2d(0.2, -0.3));
+        BaseShape duplicates = new BaseShape(far);
+        duplicates.removeDuplicates();
+        boolean deduplicated = duplicates.getCoordsView().size() == 2;
+
+        BaseShape corners = new BaseShape(Arrays.asList(new Point2d(-300000.0, -300000.0),
+                new Point2d(300000.0, 300000.0), new Point2d(-300000.0, 300000.0)));
+        corners.removeAll(Arrays.asList(new Point2d(300000.0, 300000.0), new Point2d(-300000.0, -300000.0)));
+        boolean removed = corners.getCoords().equals(Collections.singleton(new Point2d(-300000.0, 300000.0)));
+
+        BaseShape huge = new BaseShape(Arrays.asList(new Point2d(-3e6, -3e6), new Point2d(3e6, 3e6),
+                new Point2d(3e6, -3e6)));
+        huge.remove(new BaseShape(Arrays.asList(new Point2d(3e6, 3e6), new Point2d(-3e6, 3e6))));
+        boolean subtracted = huge.getCoords().equals(new HashSet<>(Arrays.asList(
+                new Point2d(-3e6, -3e6), new Point2d(3e6, -3e6))));
+
+        // Un ensemble disperse se combine avec un ensemble dense, et redevient dense en se remplissant.
+        PixelSet sparse = new PixelSet();
+        sparse.add(0, 0);
+        sparse.add(1 << 30, 1 << 30);
+        PixelSet letter = new Rectangle(20.0, 200.0).getPixels();
+        boolean mixed = sparse.intersects(letter) && letter.intersects(sparse);
+        sparse.or(letter);
+        mixed &= sparse.size() == letter.size() + 1 && sparse.contains(1 << 30, 1 << 30);
+        sparse.andNot(letter);
+        mixed &= sparse.size() == 1 && !sparse.contains(0, 0);
+        sparse.remove(1 << 30, 1 << 30);
+        for (int y = 0; y < 200; ++y) {
+            sparse.addRow(y, 0, 199);
+        }
+        List<Point2d> visited = new ArrayList<>();
+        sparse.forEach((x, y) -> visited.add(new Point2d((double) x, (double) y)));
+        mixed &= sparse.size() == 200 * 200 && visited.size() == 200 * 200
+                && visited.get(1).equals(new Point2d(1.0, 0.0)) && visited.get(200).equals(new Point2d(0.0, 1.0));
+        return deduplicated && removed && subtracted && mixed ? value : 0.0;
+    }
+
+    // Une forme dont la boite englobante est deja calculee, puis deplacee, garde sa translation
+    // en attente: elle doit etre appliquee une seule fois, meme si plusieurs tuiles lisent la forme.
+    private static Double translatedRendering(Double value) {
+        BaseShape source = new Rectangle(300.0, 300.0);
+        source.getCoordsView().size();
+        source.getBounds();
+        BaseShape sampled = source.translate(new Point2d(200.0, 200.0));
+        List<Point2d> points = new ArrayList<>(sampled.getCoordsView());
+        int[] colors = { 0xFFFFFF };
+        int[] expected = new int[400 * 400];
+        TileRenderer renderer = new TileRenderer(1);
+        renderer.render(Collections.singletonList(sampled), colors, expected, 400, 400);
+        boolean same = true;
+        for (int i = 0; i < 20; ++i) {
+            BaseShape moved = source.translate(new Point2d(200.0, 200.0));
+            int[] pixels = new int[400 * 400];
+            renderer.render(Collections.singletonList(moved), colors, pixels, 400, 400);
+            same &= Arrays.equals(pixels, expected)
+                    && new ArrayList<>(moved.getCoordsView()).equals(points);
+        }
+        return same ? value : 0.0;
+    }
+
+    // Les formes analytiques sont decoupees en segments horizontaux: un rectangle tourne d'un
+    // quart de tour couvre les memes pixels que ses points, et l'anneau d'une ellipse donne des
+    // segments disjoints, qui laissent le trou vide et restent entre ses deux bords.
+    private static Double scanline(Double value) {
+        BaseShape rectangle = new Rectangle(20.5, 31.0).rotate(Math.toRadians(90))
+                .translate(new Point2d(40.3, 40.7));
+        Set<Point2d> spans = new HashSet<>();
+        rectangle.rasterize(2, (y, fromX, toX) -> {
+            for (int x = fromX; x <= toX; ++x) {
+                spans.add(new Point2d((double) x, (double) y));
+            }
+        }, (x, y) -> spans.addAll(stamp(x, y, 2)));
+        Set<Point2d> points = new HashSet<>();
+        for (Point2d point : rectangle.clone().getCoordsView()) {
+            points.addAll(stamp(point.X(), point.Y(), 2));
+        }
+        boolean sameRectangle = spans.equals(points);
+
+        BaseShape ellipse = new Ellipse(50.0, 100.0).translate(new Point2d(120.3, 120.6));
+        Map<Integer, List<int[]>> rows = new TreeMap<>();
+        ellipse.rasterize(0, (y, fromX, toX) -> rows.computeIfAbsent(y, row -> new ArrayList<>())
+                .add(new int[] { fromX, toX }), (x, y) -> { });
+        boolean ring = rows.get(121).size() == 2 && rows.get(121).get(0)[1] < 120
+                && rows.get(121).get(1)[0] > 120 && rows.size() == 201;
+        for (Map.Entry<Integer, List<int[]>> row : rows.entrySet()) {
+            double dy = row.getKey() - 120.6;
+            for (int i = 0; i < row.getValue().size(); ++i) {
+                int[] span = row.getValue().get(i);
+                ring &= span[0] <= span[1] && (i == 0 || row.getValue().get(i - 1)[1] < span[0]);
+                for (int x = span[0]; x <= span[1]; ++x) {
+                    double dx = x - 120.3;
+                    ring &= Math.pow(dx / 51.0, 2) + Math.pow(dy / 101.0, 2) <= 1.0
+                            && Math.pow(dx / 29.0, 2) + Math.pow(dy / 79.0, 2) >= 1.0;
+                }
+            }
+        }
+        return sameRectangle && ring ? value : 0.0;
+    }
+
+    // Pixels dessines autour d'un point, comme TileRenderer.
+    private static List<Point2d> stamp(double x, double y, int margin) {
+        List<Point2d> pixels = new ArrayList<>();
+        for (long i = Math.round(x) - margin; i <= Math.round(x) + margin; ++i) {
+            for (long j = Math.round(y) - margin; j <= Math.round(y) + margin; ++j) {
+                pixels.add(new Point2d((double) i, (double) j));
+            }
+        }
+        return pixels;
+    }
+
+    // Les spans d'une forme analytique dessinent les memes pixels que ses points, meme
+    // lorsque la translation tombe entre deux pixels.
+    private static Double spanRounding(Double value) {
+        double[] offsets = { 0.0, 0.3, 0.5, 0.7, 1.25 };
+        boolean same = true;
+        for (double dx : offsets) {
+            for (double dy : offsets) {
+                Point2d center = new Point2d(40.0 + dx, 40.0 + dy);
+                same &= sameRendering(new Rectangle(20.5, 31.0).translate(center))
+                        && sameRendering(new Square(15.0).translate(center));
+            }
+        }
+        return same ? value : 0.0;
+    }
+
+    private static boolean sameRendering(BaseShape shape) {
+        BaseShape sampled = shape.clone();
+        sampled.getCoordsView().size();
+        int[] colors = { 0xFFFFFF };
+        int[] spans = new int[80 * 80];
+        int[] points = new int[80 * 80];
+        TileRenderer renderer = new TileRenderer(3);
+        renderer.render(Collections.singletonList(shape), colors, spans, 80, 80);
+        renderer.render(Collections.singletonList(sampled), colors, points, 80, 80);
+        return Arrays.equals(spans, points);
+    }
+
+    // La marge est ajoutee dans le repere de l'image, comme le carre dessine autour de chaque
+    // point: les traits de W, tournes de 8 degres, couvrent les memes pixels que leurs points a
+    // quelques pixels pres. Les points d'une ellipse ne sont calcules que sur 100 angles et leurs
+    // carres laissent de petites encoches sur le bord, que les segments remplissent; l'anneau
+    // ne doit pas pour autant perdre de pixels.
+    private static Double deviceMargin(Double value) {
+        boolean same = true;
+        boolean kept = true;
+        double[] offsets = { 0.0, 0.3, 0.5, 0.77 };
+        for (double offset : offsets) {
+            Point2d center = new Point2d(150.0 + offset, 150.0 + offset / 2);
+            int[] stroke = renderingDifference(LetterFactory.create_W().translate(center));
+            same &= stroke[1] <= stroke[0] / 200 && stroke[2] <= stroke[0] / 200;
+            int[] ring = renderingDifference(LetterFactory.create_o().translate(center));
+            kept &= ring[1] <= ring[0] / 200 && ring[2] <= ring[0] / 20;
+        }
+        return same && kept ? value : 0.0;
+    }
+
+    // Retourne le nombre de pixels dessines par les points de la forme, le nombre de ceux qui
+    // manquent au rendu par segments et le nombre de pixels dessines seulement par les segments.
+    private static int[] renderingDifference(BaseShape shape) {
+        BaseShape sampled = shape.clone();
+        sampled.getCoordsView().size();
+        int[] colors = { 0xFFFFFF };
+        int[] spans = new int[300 * 300];
+        int[] points = new int[300 * 300];
+        TileRenderer renderer = new TileRenderer(3);
+        renderer.render(Collections.singletonList(shape), colors, spans, 300, 300);
+        renderer.render(Collections.singletonList(sampled), colors, points, 300, 300);
+        int[] difference = new int[3];
+        for (int i = 0; i < spans.length; ++i) {
+            difference[0] += points[i] != 0 ? 1 : 0;
+            difference[1] += points[i] != 0 && spans[i] == 0 ? 1 : 0;
+            difference[2] += spans[i] != 0 && points[i] == 0 ? 1 : 0;
+        }
+        return difference;
+    }
+
+    private static Double pointCursor(Double value) {
+        BaseShape shape = new Rectangle(20.0, 40.0);
+        Set<Point2d> expected = shape.rotate(Math.toRadians(90)).translate(new Point2d(10.0, 0.0)).getCoords();
+        double cos = Math.cos(Math.toRadians(90));
+        double sin = Math.sin(Math.toRadians(90));
+        shape.updatePoints(cursor -> cursor.rotate(cos, sin).translate(10.0, 0.0));
+        List<Point2d> frozen = new ArrayList<>();
+        shape.forEachCursor(cursor -> frozen.add(cursor.freeze()));
+        boolean inPlace = shape.getCoords().equals(expected) && new HashSet<>(frozen).equals(expected);
+        boolean bounds = shape.getBounds().getMaxX() == 30.0;
+        return inPlace && bounds ? value : 0.0;
+    }
+
+    private static Double parallelSampling(Double value) {
+        // Assez de points pour que l'echantillonnage soit reparti entre les threads.
+        BaseShape shape = new Rectangle(300.5, 200.0).translate(new Point2d(3.0, 4.0));
+        List<Point2d> expected = new ArrayList<>();
+        expected.add(new Point2d(3.0, 4.0));
+        for (double i = -150.25; i < 150.25; i++) {
+            for (double j = -100.0; j < 100.0; j++) {
+                expected.add(new Point2d(i + 3.0, j + 4.0));
+            }
+        }
+        List<Point2d> sampled = new ArrayList<>(shape.getCoordsView());
+        return sampled.equals(expected) ? value : 0.0;
+    }
+
+    private static Double shapeIndex(Double value) {
+        ShapeIndex index = new ShapeIndex(1, 16);
+        int left = index.add(new Rectangle(20.0, 20.0).translate(new Point2d(20.0, 20.0)));
+        int right = index.add(new Rectangle(20.0, 20.0).translate(new Point2d(60.0, 20.0)));
+        // Boite seule, qui touche quatre cellules.
+        int boxed = index.add(new BoundingBox(75, 75, 85, 85));
+        boolean hits = index.shapeAt(20, 20) == left && index.shapeAt(60, 29) == right
+                && index.shapeAt(40, 20) == -1 && index.shapeAt(500, 500) == -1 && index.shapeAt(80, 80) == -1;
+        boolean overlaps = index.overlapping(new BoundingBox(0, 0, 100, 100)).equals(Arrays.asList(left, right, boxed))
+                && index.overlapping(new BoundingBox(45, 0, 70, 100)).equals(Collections.singletonList(right));
+        boolean collisions = index.collides(new Rectangle(10.0, 10.0).translate(new Point2d(35.0, 20.0)))
+                && !index.collides(new Rectangle(4.0, 4.0).translate(new Point2d(40.0, 20.0)))
+                && index.collides(new BoundingBox(80, 80, 81, 81))
+                && !index.collides(new Rectangle(4.0, 4.0).translate(new Point2d(80.0, 80.0)));
+        return hits && overlaps && collisions ? value : 0.0;
+    }
+
+    private static Double mappedRaster(Double value) {
+        List<BaseShape> shapes = new ArrayList<>();
+        shapes.add(new Rectangle(30.0, 10.0).translate(new Point2d(20.0, 15.0)));
+        shapes.add(new Circle(8.0).translate(new Point2d(30.0, 20.0)));
+        int[] colors = { 0x123456, 0xABCDEF };
+        int[] pixels = new int[50 * 40];
+        TileRenderer renderer = new TileRenderer(1);
+        renderer.render(shapes, colors, pixels, 50, 40);
+        try {
+            File file = File.createTempFile("mappedRaster", ".ppm");
+            file.deleteOnExit();
+            boolean same = true;
+            try (MappedPpmRaster raster = MappedPpmRaster.create(file.toPath(), 50, 40)) {
+                renderer.render(shapes, colors, raster);
+                for (int i = 0; i < pixels.length; ++i) {
+                    same &= raster.getPixel(i % 50, i / 50) == pixels[i];
+                }
+            }
+            // Une fois ferme, le fichier contient les pixels et n'est plus bloque par les projections.
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            int offset = "P6\n50 40\n255\n".length();
+            boolean written = bytes.length == offset + 3 * pixels.length;
+            for (int i = 0; written && i < pixels.length; ++i) {
+                int color = (bytes[offset + 3 * i] & 0xFF) << 16 | (bytes[offset + 3 * i + 1] & 0xFF) << 8
+                        | (bytes[offset + 3 * i + 2] & 0xFF);
+                written = color == pixels[i];
+            }
+            return same && written && file.delete() ? value : 0.0;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return 0.0;
+    }
+
+    private static Double imagePipeline(Double value) {
+        try {
+            File directory = Files.createTempDirectory("imagePipeline").toFile();
+            directory.deleteOnExit();
+            LetterPlacer letterPlacer = new LetterPlacer();
+            for (char letter : "Hello".toCharArray()) {
+                letterPlacer.placeNext(letter);
+            }
+            letterPlacer.placeNextln('W');
+            File expected = letterPlacer.saveImage(new File(directory, "expected").getPath(), true);
+            List<CompletableFuture<File>> results = new ArrayList<>();
+            ImagePipeline pipeline = new ImagePipeline(1);
+            try (pipeline) {
+                for (int i = 0; i < 3; ++i) {
+                    results.add(pipeline.submit("Hello\nW", new File(directory, "image" + i).getPath(), true));
+                }
+                results.add(pipeline.submit("?\u00e9", new File(directory, "invalid").getPath(), true));
+            }
+            boolean same = true;
+            for (int i = 0; i < 3; ++i) {
+                File file = results.get(i).get();
+                same &= Arrays.equals(Files.readAllBytes(file.toPath()), Files.readAllBytes(expected.toPath()));
+                file.deleteOnExit();
+            }
+            expected.deleteOnExit();
+            boolean failed = results.get(3).isCompletedExceptionally();
+            boolean counted = pipeline.getStats(ImagePipeline.Stage.LAYOUT).getFailed() == 1
+                    && pipeline.getStats(ImagePipeline.Stage.ENCODE).getProcessed() == 3
+                    && pipeline.getStats(ImagePipeline.Stage.ENCODE).getQueueDepth() == 0;
+            // Le cache est partage: seul le premier texte construit ses lettres ('l' y est deja repete).
+            boolean shared = pipeline.getGlyphCache().getHitCount() == 1 + 2 * 6;
+            return same && failed && counted && shared ? value : 0.0;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return 0.0;
+    }
+
+    // Chaque cas de Benchmark s'execute une fois et ecrit ses images; le compteur
+    // d'allocation utilise par les mesures progresse (s'il est fourni par la JVM).
+    private static Double benchmarkCases(Double value) {
+        try {
+            File directory = Files.createTempDirectory("benchmark").toFile();
+            directory.deleteOnExit();
+            long before = Benchmark.allocatedBytes();
+            int count = Benchmark.runOnce(directory);
+            boolean counted = before == 0 || Benchmark.allocatedBytes() > before;
+            boolean written = true;
+            for (int lines : new int[] { 1, 4, 16 }) {
+                for (String extension : new String[] { ".jpg", ".ppm" }) {
+                    written &= new File(directory, "lines" + lines + extension).length() > 0;
+                }
+            }
+            return count > 0 && counted && written ? value : 0.0;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return 0.0;
+    }
+}
@@ -1,14 +1,13 @@
 package tp1;
 
-import java.util.Arrays;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public abstract class AbstractPoint {
-    protected Double[] vector;
-
-    public AbstractPoint(Double[] vector) {
-        this.vector = vector;
-    }
+    // Les coordonnees sont gardees en primitives par les sous-classes,
+    // on y accede seulement par composante.
+    public abstract int dimension();
+    public abstract double get(int index);
 
     public abstract AbstractPoint translate(Double[] translateVector);
     public abstract AbstractPoint rotate(Double[][] rotationMatrix);
@@ -16,26 +15,50 @@ public abstract class AbstractPoint {
     public abstract AbstractPoint multiply(Double multiplier);
     public abstract AbstractPoint add(Double adder);
 
+    // Retourne une copie boxee des coordonnees.
+    public Double[] toVector() {
+        Double[] vector = new Double[dimension()];
+        for (int i = 0; i < vector.length; ++i) {
+            vector[i] = get(i);
+        }
+        return vector;
+    }
+
     @Override
     public String toString() {
-        return Arrays.stream(vector)
-                .map(v -> String.valueOf(Math.round(v)))
+        return IntStream.range(0, dimension())
+                .mapToObj(i -> String.valueOf(Math.round(get(i))))
                 .collect(Collectors.joining(";"));
     }
 
+    // Deux points sont egaux si leurs coordonnees arrondies a l'entier le sont.
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AbstractPoint)) {
+            return false;
+        }
         AbstractPoint abstractPoint = (AbstractPoint)o;
-        for (int i = 0; i < vector.length; ++i) {
-            if (Math.round(vector[i]) != Math.round(abstractPoint.vector[i])) {
+        if (dimension() != abstractPoint.dimension()) {
+            return false;
+        }
+        for (int i = 0; i < dimension(); ++i) {
+            if (Math.round(get(i)) != Math.round(abstractPoint.get(i))) {
                 return false;
             }
         }
         return true;
     }
 
+    // Calcule sur les coordonnees arrondies, comme equals, sans creer d'objet.
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        int hash = 1;
+        for (int i = 0; i < dimension(); ++i) {
+            hash = 31 * hash + Long.hashCode(Math.round(get(i)));
+        }
+        return hash;
     }
 }
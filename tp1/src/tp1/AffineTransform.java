@@ -0,0 +1,168 @@
+package tp1;
+
+// Matrice 3x3 d'une transformation affine en 2d. La derniere ligne vaut toujours
+// (0, 0, 1), on ne garde donc que les deux premieres. Les instances sont immuables:
+// chaque operation retourne une nouvelle transformation composee.
+public final class AffineTransform {
+    public static final AffineTransform IDENTITY = new AffineTransform(1.0, 0.0, 0.0, 0.0, 1.0, 0.0);
+
+    private final double m00, m01, m02;
+    private final double m10, m11, m12;
+
+    private AffineTransform(double m00, double m01, double m02,
+                            double m10, double m11, double m12) {
+        this.m00 = m00;
+        this.m01 = m01;
+        this.m02 = m02;
+        this.m10 = m10;
+        this.m11 = m11;
+        this.m12 = m12;
+    }
+
+    public static AffineTransform translation(double dx, double dy) {
+        return new AffineTransform(1.0, 0.0, dx, 0.0, 1.0, dy);
+    }
+
+    public static AffineTransform rotation(double angle) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        return new AffineTransform(cos, -sin, 0.0, sin, cos, 0.0);
+    }
+
+    public static AffineTransform scaling(double factor) {
+        return new AffineTransform(factor, 0.0, 0.0, 0.0, factor, 0.0);
+    }
+
+    // Retourne la transformation qui applique this, puis next.
+    public AffineTransform then(AffineTransform next) {
+        if (isIdentity()) {
+            return next;
+        }
+        if (next.isIdentity()) {
+            return this;
+        }
+        return new AffineTransform(
+                next.m00 * m00 + next.m01 * m10,
+                next.m00 * m01 + next.m01 * m11,
+                next.m00 * m02 + next.m01 * m12 + next.m02,
+                next.m10 * m00 + next.m11 * m10,
+                next.m10 * m01 + next.m11 * m11,
+                next.m10 * m02 + next.m11 * m12 + next.m12);
+    }
+
+    public AffineTransform translate(double dx, double dy) {
+        return then(translation(dx, dy));
+    }
+
+    public AffineTransform rotate(double angle) {
+        return then(rotation(angle));
+    }
+
+    public AffineTransform scale(double factor) {
+        return then(scaling(factor));
+    }
+
+    // Retourne la transformation inverse, ou null si la matrice n'est pas inversible.
+    public AffineTransform inverse() {
+        double determinant = m00 * m11 - m01 * m10;
+        if (determinant == 0.0) {
+            return null;
+        }
+        double i00 = m11 / determinant;
+        double i01 = -m01 / determinant;
+        double i10 = -m10 / determinant;
+        double i11 = m00 / determinant;
+        return new AffineTransform(
+                i00, i01, -(i00 * m02 + i01 * m12),
+                i10, i11, -(i10 * m02 + i11 * m12));
+    }
+
+    public boolean isIdentity() {
+        return isTranslation() && m02 == 0.0 && m12 == 0.0;
+    }
+
+    // Vrai si la transformation ne fait que deplacer les points.
+    public boolean isTranslation() {
+        return m00 == 1.0 && m01 == 0.0 && m10 == 0.0 && m11 == 1.0;
+    }
+
+    public double getTranslateX() {
+        return m02;
+    }
+
+    public double getTranslateY() {
+        return m12;
+    }
+
+    // Retourne la boite englobante des quatre coins de la boite transformee.
+    public BoundingBox apply(BoundingBox box) {
+        if (box.isEmpty()) {
+            return box;
+        }
+        if (isTranslation()) {
+            return box.translate(m02, m12);
+        }
+        BoundingBox bounds = BoundingBox.EMPTY;
+        double[] xs = { box.getMinX(), box.getMaxX() };
+        double[] ys = { box.getMinY(), box.getMaxY() };
+        for (double x : xs) {
+            for (double y : ys) {
+                double tx = m00 * x + m01 * y + m02;
+                double ty = m10 * x + m11 * y + m12;
+                bounds = bounds.union(new BoundingBox(tx, ty, tx, ty));
+            }
+        }
+        return bounds;
+    }
+
+    public Point2d apply(Point2d point) {
+        return new Point2d(
+                m00 * point.X() + m01 * point.Y() + m02,
+                m10 * point.X() + m11 * point.Y() + m12);
+    }
+
+    // Applique la transformation sur le curseur, sans creer de point.
+    public void apply(PointCursor cursor) {
+        double x = cursor.X();
+        double y = cursor.Y();
+        cursor.set(m00 * x + m01 * y + m02, m10 * x + m11 * y + m12);
+    }
+
+    // Applique la transformation sur le nuage en une seule passe.
+    public void apply(PointCloud cloud) {
+        if (isTranslation()) {
+            cloud.translate(m02, m12);
+        } else {
+            cloud.transform(m00, m01, m02, m10, m11, m12);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof AffineTransform)) {
+            return false;
+        }
+        AffineTransform other = (AffineTransform) o;
+        return m00 == other.m00 && m01 == other.m01 && m02 == other.m02
+                && m10 == other.m10 && m11 == other.m11 && m12 == other.m12;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Double.hashCode(m00);
+        hash = 31 * hash + Double.hashCode(m01);
+        hash = 31 * hash + Double.hashCode(m02);
+        hash = 31 * hash + Double.hashCode(m10);
+        hash = 31 * hash + Double.hashCode(m11);
+        return 31 * hash + Double.hashCode(m12);
+    }
+
+    // Retourne la matrice complete 3x3.
+    public double[][] getMatrix() {
+        return new double[][] {
+                {m00, m01, m02},
+                {m10, m11, m12},
+                {0.0, 0.0, 1.0}
+        };
+    }
+}
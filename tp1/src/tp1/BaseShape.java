@@ -1,81 +1,477 @@
 package tp1;
 
-import java.awt.*;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class BaseShape {
-    // Vous aller apprendre plus en details le fonctionnement d'un Set lors
-    // du cours sur les fonctions de hashage, vous pouvez considerez ceci comme une liste normale.
-    private Set<Point2d> coords;
+    // Les points sont gardes en colonnes (voir PointCloud). Les doublons ne sont
+    // retires que sur demande (removeDuplicates) ou lors de la conversion en Set.
+    private PointCloud coords;
+    // Transformation en attente: les points reels sont transform(coords). Elle est
+    // appliquee une seule fois, quand on a besoin des points.
+    private AffineTransform transform;
+    // Vrai si coords est partage avec une autre forme; il faut alors le copier avant de le modifier.
+    private boolean shared;
+    // Boite englobante des points, apres transformation. Elle est tenue a jour a chaque ajout
+    // et suit les translations; une rotation ou un retrait l'invalide jusqu'au prochain appel.
+    private double minX, minY, maxX, maxY;
+    private boolean boundsValid;
+    // Formes de base gardees sous forme analytique (voir ShapeGeometry), chacune avec
+    // sa propre transformation. Elles ne sont echantillonnees en points que si on lit les points.
+    private List<Part> parts;
 
     // Initialise les points.
     public BaseShape() {
-        coords = new HashSet<>();
-        coords.add(new Point2d(0.0, 0.0));
+        this(new PointCloud());
+        addPoint(0.0, 0.0);
     }
 
     // Prend une liste de points et creer une nouvelle forme.
     public BaseShape(Collection<Point2d> coords) {
-        this.coords = new HashSet<>();
+        this(new PointCloud(coords.size()));
         this.addAll(coords);
     }
 
+    // Prend possession d'un nuage de points deja construit.
+    protected BaseShape(PointCloud coords) {
+        this.coords = coords;
+        this.transform = AffineTransform.IDENTITY;
+        this.shared = false;
+        this.parts = new ArrayList<>();
+        resetBounds();
+        boundsValid = coords.isEmpty();
+    }
+
+    // Partage les points d'une autre forme et y ajoute une transformation en attente.
+    protected BaseShape(BaseShape source, AffineTransform next) {
+        this.coords = source.coords;
+        this.transform = source.transform.then(next);
+        this.shared = true;
+        source.shared = true;
+        this.parts = new ArrayList<>(source.parts.size());
+        for (Part part : source.parts) {
+            parts.add(new Part(part.geometry, part.transform.then(next)));
+        }
+        if (source.boundsValid && next.isTranslation()) {
+            minX = source.minX + next.getTranslateX();
+            minY = source.minY + next.getTranslateY();
+            maxX = source.maxX + next.getTranslateX();
+            maxY = source.maxY + next.getTranslateY();
+            boundsValid = true;
+        }
+    }
+
     // FIXME:Ajoute ou retire des coordonnees a la liste de points.
     public void add(Point2d coord) {
-        coords.add(new Point2d(coord.X(),coord.Y()));
+        addPoint(coord.X(), coord.Y());
     }
     public void add(BaseShape shape) {
-        addAll(shape.getCoords());
+        if (boundsValid) {
+            shape.validateBounds();
+            includeInBounds(shape.minX, shape.minY);
+            includeInBounds(shape.maxX, shape.maxY);
+        }
+        PointCloud added = shape.getPointCloud();
+        getMutablePointCloud().addAll(added);
+        parts.addAll(shape.parts);
     }
     public void addAll(Collection<Point2d> coords) {
-        this.coords.addAll(new HashSet<>(coords));
+        for (Point2d coord : coords) {
+            addPoint(coord.X(), coord.Y());
+        }
     }
     public void remove(Point2d coord) {
-         coords.remove(new Point2d(coord.X(),coord.Y()));
+        PointCloud cloud = getMutableCloud();
+        int size = cloud.size();
+        cloud.remove(coord.X(), coord.Y());
+        invalidateBoundsIfShrunk(size);
     }
     public void remove(BaseShape shape) {
-        removeAll(shape.getCoords());
+        PointCloud removed = shape.getCloud();
+        PointCloud cloud = getMutableCloud();
+        int size = cloud.size();
+        cloud.removeAll(removed);
+        invalidateBoundsIfShrunk(size);
     }
     public void removeAll(Collection<Point2d> coords) {
-        this.coords.removeAll(new HashSet<>(coords));
+        PixelSet removed = new PixelSet();
+        for (Point2d coord : coords) {
+            removed.add((int) Math.round(coord.X()), (int) Math.round(coord.Y()));
+        }
+        PointCloud cloud = getMutableCloud();
+        int size = cloud.size();
+        cloud.removeAll(removed);
+        invalidateBoundsIfShrunk(size);
+    }
+
+    // Retire les points qui tombent sur le meme pixel.
+    public void removeDuplicates() {
+        getMutableCloud().removeDuplicates();
+    }
+
+    // Retourne les pixels couverts par la forme. L'union et la difference de deux
+    // ensembles de pixels se font mot par mot (voir PixelSet.or et PixelSet.andNot).
+    public PixelSet getPixels() {
+        return PixelSet.of(getCloud());
     }
 
     // Retourne les coordonnees de la liste
     public Set<Point2d> getCoords() {
-        return new HashSet<>(coords);
+        return getCloud().toSet();
+    }
+
+    // Retourne une vue non modifiable des coordonnees, sans copie. La vue suit
+    // les modifications faites ensuite sur la forme et peut contenir des doublons.
+    public Collection<Point2d> getCoordsView() {
+        return new AbstractCollection<Point2d>() {
+            @Override
+            public Iterator<Point2d> iterator() {
+                PointCloud cloud = getCloud();
+                return new Iterator<Point2d>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < cloud.size();
+                    }
+
+                    @Override
+                    public Point2d next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return cloud.get(index++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return getCloud().size();
+            }
+        };
+    }
+
+    // Parcourt les coordonnees sans copie ni allocation de points.
+    public void forEachPoint(PointCloud.PointVisitor visitor) {
+        getCloud().forEach(visitor);
+    }
+
+    // Parcourt les coordonnees avec un seul curseur reutilise. Le visiteur doit appeler
+    // freeze() pour garder un point apres sa visite.
+    public void forEachCursor(PointCursor.Visitor visitor) {
+        getCloud().forEach(new PointCursor(), visitor);
+    }
+
+    // Modifie chaque point sur place avec le visiteur, sans creer de point.
+    public void updatePoints(PointCursor.Visitor visitor) {
+        getMutableCloud().update(new PointCursor(), visitor);
+        boundsValid = false;
+    }
+
+    // Decoupe la forme pour le rendu: les parties analytiques, agrandies de margin pixels, sont
+    // visitees en segments horizontaux et les autres points sont visites tels quels.
+    // Contrairement a forEachPoint, les parties analytiques ne sont jamais echantillonnees.
+    public void rasterize(int margin, SpanVisitor spanVisitor, PointCloud.PointVisitor pointVisitor) {
+        rasterize(margin, Integer.MIN_VALUE, Integer.MAX_VALUE, spanVisitor, pointVisitor);
+    }
+
+    // Meme chose, en se limitant aux lignes fromY a toY (inclusivement) pour les parties analytiques.
+    // Une fois prepareForRendering() appele, cette methode ne modifie plus la forme et peut etre
+    // appelee par plusieurs threads a la fois.
+    public void rasterize(int margin, int fromY, int toY,
+                          SpanVisitor spanVisitor, PointCloud.PointVisitor pointVisitor) {
+        getPointCloud().forEach(pointVisitor);
+        for (Part part : parts) {
+            part.rasterize(margin, fromY, toY, spanVisitor);
+        }
+    }
+
+    // Applique la transformation en attente et calcule la boite englobante. getBounds() ne
+    // suffit pas: une translation garde la boite de la forme d'origine sans toucher aux points.
+    void prepareForRendering() {
+        getPointCloud();
+        validateBounds();
     }
 
     // Appliquer la translation sur la forme
     public BaseShape translate(Point2d point) {
-        return new BaseShape(this.translateAll(point));
+        return transform(AffineTransform.translation(point.X(), point.Y()));
     }
 
     // Appliquer la translation sur la liste.
     public Set<Point2d> translateAll(Point2d point) {
-        Set<Point2d> translatedCoords = new HashSet<>();
-        for (Point2d point2d : getCoords()) {
-            translatedCoords.add(point2d.translate(point));
-        }
-        return translatedCoords;
+        return translate(point).getCoords();
     }
 
     // Applique la rotation sur la forme
     public BaseShape rotate(Double angle) {
-        return new BaseShape(this.rotateAll(angle));
+        return transform(AffineTransform.rotation(angle));
     }
 
     // Applique la rotation sur la liste
     public Set<Point2d> rotateAll(Double angle) {
-        Set<Point2d> rotatedCoords = new HashSet<>();
-        for (Point2d point2d : getCoords()) {
-            rotatedCoords.add(point2d.rotate(angle));
-        }
-        return rotatedCoords;
+        return rotate(angle).getCoords();
     }
 
-    // Retourne une nouvelle forme
+    // Applique le facteur de multiplication sur la forme
+    public BaseShape scale(Double factor) {
+        return transform(AffineTransform.scaling(factor));
+    }
+
+    // Retourne une nouvelle forme qui applique la transformation sur celle-ci.
+    // Aucun point n'est calcule avant qu'on en ait besoin.
+    public BaseShape transform(AffineTransform next) {
+        return new BaseShape(this, next);
+    }
+
+    // Retourne la transformation en attente sur les points.
+    public AffineTransform getTransform() {
+        return transform;
+    }
+
+    // Retourne une nouvelle forme. Les points sont partages et copies seulement
+    // lorsque l'une des deux formes est modifiee.
     public BaseShape clone() {
-        return new BaseShape(coords);
+        return new BaseShape(this, AffineTransform.IDENTITY);
+    }
+
+    // Retourne la boite englobante des points, recalculee seulement si elle a ete invalidee.
+    public BoundingBox getBounds() {
+        validateBounds();
+        return new BoundingBox(minX, minY, maxX, maxY);
+    }
+
+    // Boite englobante de ce que rasterize dessine avec cette marge. Les parties analytiques
+    // couvrent un demi-pixel de plus que leurs points, et les points sont dessines autour
+    // de leur pixel arrondi.
+    public BoundingBox getBounds(int margin) {
+        BoundingBox points = parts.isEmpty() ? getBounds() : BoundingBox.EMPTY;
+        if (!parts.isEmpty()) {
+            PointCloud cloud = getPointCloud();
+            for (int i = 0; i < cloud.size(); ++i) {
+                points = points.union(new BoundingBox(cloud.x(i), cloud.y(i), cloud.x(i), cloud.y(i)));
+            }
+        }
+        BoundingBox bounds = points.isEmpty() ? points : new BoundingBox(
+                Math.round(points.getMinX()) - margin, Math.round(points.getMinY()) - margin,
+                Math.round(points.getMaxX()) + margin, Math.round(points.getMaxY()) + margin);
+        for (Part part : parts) {
+            bounds = bounds.union(part.getCoveredBounds().inflate(margin));
+        }
+        return bounds;
+    }
+
+    // Retourne la coordonnee avec les plus petites valeurs en X et en Y.
+    public Point2d getMinCoord() {
+        validateBounds();
+        return new Point2d(minX, minY);
+    }
+
+    // Retourne la coordonnee avec les plus grandes valeurs en X et en Y.
+    public Point2d getMaxCoord() {
+        validateBounds();
+        return new Point2d(maxX, maxY);
+    }
+
+    // Ajoute une forme de base gardee sous forme analytique.
+    protected void addGeometry(ShapeGeometry geometry) {
+        Part part = new Part(geometry, AffineTransform.IDENTITY);
+        parts.add(part);
+        if (boundsValid) {
+            includeInBounds(part.getBounds());
+        }
+    }
+
+    private void addPoint(double x, double y) {
+        getMutablePointCloud().add(x, y);
+        if (boundsValid) {
+            includeInBounds(x, y);
+        }
+    }
+
+    private void resetBounds() {
+        minX = Double.POSITIVE_INFINITY;
+        minY = Double.POSITIVE_INFINITY;
+        maxX = Double.NEGATIVE_INFINITY;
+        maxY = Double.NEGATIVE_INFINITY;
+    }
+
+    private void includeInBounds(double x, double y) {
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+    }
+
+    private void includeInBounds(BoundingBox bounds) {
+        if (!bounds.isEmpty()) {
+            includeInBounds(bounds.getMinX(), bounds.getMinY());
+            includeInBounds(bounds.getMaxX(), bounds.getMaxY());
+        }
+    }
+
+    private void invalidateBoundsIfShrunk(int previousSize) {
+        if (coords.size() != previousSize) {
+            boundsValid = false;
+        }
+    }
+
+    private void validateBounds() {
+        if (!boundsValid) {
+            resetBounds();
+            getPointCloud().forEach(this::includeInBounds);
+            for (Part part : parts) {
+                includeInBounds(part.getBounds());
+            }
+            boundsValid = true;
+        }
+    }
+
+    // Retourne tous les points de la forme. Les parties analytiques sont echantillonnees
+    // une seule fois, puis gardees comme des points ordinaires.
+    protected PointCloud getCloud() {
+        getPointCloud();
+        if (!parts.isEmpty()) {
+            PointCloud cloud = getMutablePointCloud();
+            for (Part part : parts) {
+                part.sample(cloud);
+            }
+            parts = new ArrayList<>();
+        }
+        return coords;
+    }
+
+    // Retourne tous les points, en s'assurant que cette forme est la seule a les modifier.
+    private PointCloud getMutableCloud() {
+        getCloud();
+        return getMutablePointCloud();
+    }
+
+    // Retourne les points qui ne viennent pas des parties analytiques, apres avoir
+    // applique la transformation en attente.
+    private PointCloud getPointCloud() {
+        if (!transform.isIdentity()) {
+            PointCloud transformed = new PointCloud(coords);
+            transform.apply(transformed);
+            coords = transformed;
+            transform = AffineTransform.IDENTITY;
+            shared = false;
+        }
+        return coords;
+    }
+
+    private PointCloud getMutablePointCloud() {
+        getPointCloud();
+        if (shared) {
+            coords = new PointCloud(coords);
+            shared = false;
+        }
+        return coords;
+    }
+
+    public interface SpanVisitor {
+        // Segment horizontal de la ligne y, de fromX a toX inclusivement.
+        void visit(int y, int fromX, int toX);
+    }
+
+    // Forme de base analytique placee par sa propre transformation.
+    private static final class Part {
+        final ShapeGeometry geometry;
+        final AffineTransform transform;
+
+        Part(ShapeGeometry geometry, AffineTransform transform) {
+            this.geometry = geometry;
+            this.transform = transform;
+        }
+
+        BoundingBox getBounds() {
+            return geometry.getBounds(transform);
+        }
+
+        // Les grandes parties sont echantillonnees en parallele (voir ParallelSampler).
+        void sample(PointCloud cloud) {
+            cloud.addAll(ParallelSampler.sample(geometry, transform));
+        }
+
+        // Boite des pixels dont le centre tombe dans la forme agrandie d'un demi-pixel.
+        BoundingBox getCoveredBounds() {
+            return geometry.inflate(0.5).getBounds(transform);
+        }
+
+        // Un point echantillonne p allume le pixel Math.round(p), c'est-a-dire le pixel dont le
+        // carre [x - 0.5, x + 0.5[ le contient. La forme allume donc a peu pres les pixels dont
+        // le centre tombe dans la forme agrandie d'un demi-pixel (dans ]debut, fin]): chaque
+        // ligne est ramenee dans le repere local par la transformation inverse et intersectee
+        // avec cette forme. La marge est ensuite ajoutee dans le repere de l'image, comme le
+        // carre dessine autour de chaque point: la ligne y recoit l'union des segments des
+        // lignes y - margin a y + margin, elargis de margin de chaque cote.
+        void rasterize(int margin, int minY, int maxY, SpanVisitor visitor) {
+            ShapeGeometry covered = geometry.inflate(0.5);
+            AffineTransform inverse = transform.inverse();
+            BoundingBox bounds = covered.getBounds(transform);
+            if (inverse == null || bounds.isEmpty()) {
+                return;
+            }
+            long firstRow = (long) Math.floor(bounds.getMinY()) + 1;
+            long lastRow = (long) Math.floor(bounds.getMaxY());
+            int fromY = (int) Math.max(firstRow - margin, minY);
+            int toY = (int) Math.min(lastRow + margin, maxY);
+            if (fromY > toY) {
+                return;
+            }
+            // Segments de chaque ligne utile de la forme, avant la marge (au plus 2 par ligne).
+            int fromRow = (int) Math.max(firstRow, (long) fromY - margin);
+            int toRow = (int) Math.min(lastRow, (long) toY + margin);
+            int rows = Math.max(toRow - fromRow + 1, 0);
+            int[] spans = new int[4 * rows];
+            int[] counts = new int[rows];
+            double[][] matrix = inverse.getMatrix();
+            double[] intervals = new double[4];
+            for (int row = 0; row < rows; ++row) {
+                // Les lignes du bord sont intersectees au bord de la forme, dans leur pixel.
+                double lineY = Math.min(Math.max(fromRow + row, bounds.getMinY()), bounds.getMaxY());
+                double originX = matrix[0][1] * lineY + matrix[0][2];
+                double originY = matrix[1][1] * lineY + matrix[1][2];
+                int count = covered.clip(originX, originY, matrix[0][0], matrix[1][0], intervals);
+                for (int i = 0; i < count; ++i) {
+                    int fromX = (int) Math.floor(Math.max(intervals[2 * i], bounds.getMinX())) + 1;
+                    int toX = (int) Math.floor(Math.min(intervals[2 * i + 1], bounds.getMaxX()));
+                    if (fromX <= toX) {
+                        spans[4 * row + 2 * counts[row]] = fromX;
+                        spans[4 * row + 2 * counts[row] + 1] = toX;
+                        ++counts[row];
+                    }
+                }
+            }
+            int[] starts = new int[2 * (2 * margin + 1)];
+            int[] ends = new int[starts.length];
+            for (int y = fromY; y <= toY; ++y) {
+                int count = 0;
+                int last = Math.min(toRow, y + margin);
+                for (int row = Math.max(fromRow, y - margin); row <= last; ++row) {
+                    for (int i = 0; i < counts[row - fromRow]; ++i) {
+                        // Insertion triee par debut de segment.
+                        int start = spans[4 * (row - fromRow) + 2 * i] - margin;
+                        int end = spans[4 * (row - fromRow) + 2 * i + 1] + margin;
+                        int k = count++;
+                        for (; k > 0 && starts[k - 1] > start; --k) {
+                            starts[k] = starts[k - 1];
+                            ends[k] = ends[k - 1];
+                        }
+                        starts[k] = start;
+                        ends[k] = end;
+                    }
+                }
+                // Fusionne les segments qui se chevauchent ou se touchent.
+                for (int i = 0; i < count; ) {
+                    int start = starts[i];
+                    int end = ends[i];
+                    for (++i; i < count && starts[i] <= end + 1; ++i) {
+                        end = Math.max(end, ends[i]);
+                    }
+                    visitor.visit(y, start, end);
+                }
+            }
+        }
     }
 }
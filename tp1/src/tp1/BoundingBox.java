@@ -0,0 +1,80 @@
+package tp1;
+
+// Boite englobante alignee sur les axes. Une boite vide a un minimum a +infini
+// et un maximum a -infini, de sorte que l'union avec n'importe quelle boite la remplace.
+public final class BoundingBox {
+    public static final BoundingBox EMPTY = new BoundingBox(
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+    private final double minX, minY;
+    private final double maxX, maxY;
+
+    public BoundingBox(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    public double getMinX() { return minX; }
+    public double getMinY() { return minY; }
+    public double getMaxX() { return maxX; }
+    public double getMaxY() { return maxY; }
+
+    public Point2d getMin() {
+        return new Point2d(minX, minY);
+    }
+
+    public Point2d getMax() {
+        return new Point2d(maxX, maxY);
+    }
+
+    public boolean isEmpty() {
+        return minX > maxX || minY > maxY;
+    }
+
+    public double getWidth() {
+        return isEmpty() ? 0.0 : maxX - minX;
+    }
+
+    public double getHeight() {
+        return isEmpty() ? 0.0 : maxY - minY;
+    }
+
+    public BoundingBox translate(double dx, double dy) {
+        if (isEmpty()) {
+            return this;
+        }
+        return new BoundingBox(minX + dx, minY + dy, maxX + dx, maxY + dy);
+    }
+
+    // Agrandit la boite de margin de chaque cote.
+    public BoundingBox inflate(double margin) {
+        if (isEmpty()) {
+            return this;
+        }
+        return new BoundingBox(minX - margin, minY - margin, maxX + margin, maxY + margin);
+    }
+
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(
+                Math.min(minX, other.minX), Math.min(minY, other.minY),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY));
+    }
+
+    public boolean contains(double x, double y) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY;
+    }
+
+    public boolean intersects(BoundingBox other) {
+        return !isEmpty() && !other.isEmpty()
+                && minX <= other.maxX && other.minX <= maxX
+                && minY <= other.maxY && other.minY <= maxY;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + getMin() + " -> " + getMax() + "]";
+    }
+}
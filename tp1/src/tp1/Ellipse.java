@@ -10,35 +10,35 @@ public class Ellipse extends BaseShape {
 
     // Cree une ellipse avec une largeur et une longueur.
     public Ellipse(Double widthRadius, Double heightRadius) {
-        super();
-        for (double i = 0.0; i < 2 * Math.PI; i += (2 * Math.PI) / 100) {
-            for (double wR = widthRadius - ellipseThickness, hR = heightRadius - ellipseThickness;
-                 wR < widthRadius + 1 && hR < heightRadius + 1; wR++,hR++) {
-                add(new Point2d(wR * Math.cos(i),  hR * Math.sin(i)));
-            }
-        }
-        remove(new Point2d(0.0,0.0));
+        super(new PointCloud());
+        addGeometry(new Geometry(widthRadius, heightRadius, 0.0));
     }
 
-    private Ellipse(Set<Point2d> coords) {
-        super(coords);
+    private Ellipse(Ellipse source, AffineTransform next) {
+        super(source, next);
     }
 
     // Applique la translation sur la forme.
     @Override
     public Ellipse translate(Point2d point) {
-        return new Ellipse(super.translate(point).getCoords());
+        return transform(AffineTransform.translation(point.X(), point.Y()));
     }
 
     // Applique la rotation sur la forme.
     @Override
     public Ellipse rotate(Double angle) {
-        return new Ellipse(super.rotate(angle).getCoords());
+        return transform(AffineTransform.rotation(angle));
+    }
+
+    // Applique la transformation sur la forme, sans calculer les points.
+    @Override
+    public Ellipse transform(AffineTransform next) {
+        return new Ellipse(this, next);
     }
 
     // Retourne une nouvelle forme.
     @Override
-    public Ellipse clone() { return new Ellipse(getCoords()); }
+    public Ellipse clone() { return new Ellipse(this, AffineTransform.IDENTITY); }
 
     // Returns a set of n points calculated from the parametric equation of an ellipse
     public static Set<Point2d> ellipseParametricEquationPoints(
@@ -52,4 +52,128 @@ public class Ellipse extends BaseShape {
         }
         return coords;
     }
+
+    // Geometrie d'un anneau elliptique centre sur l'origine, d'epaisseur ellipseThickness.
+    // Quand le rayon interieur serait negatif, les anneaux echantillonnes couvrent tout le
+    // disque (les rayons negatifs passent de l'autre cote du centre) et l'anneau devient plein.
+    private static final class Geometry implements ShapeGeometry {
+        private final double widthRadius;
+        private final double heightRadius;
+        private final double margin;
+        private final double outerWidth, outerHeight;
+        private final double innerWidth, innerHeight;
+
+        Geometry(double widthRadius, double heightRadius, double margin) {
+            this.widthRadius = widthRadius;
+            this.heightRadius = heightRadius;
+            this.margin = margin;
+            double innerW = widthRadius - ellipseThickness;
+            double innerH = heightRadius - ellipseThickness;
+            outerWidth = Math.max(Math.abs(innerW), widthRadius) + margin;
+            outerHeight = Math.max(Math.abs(innerH), heightRadius) + margin;
+            boolean filled = innerW - margin <= 0 || innerH - margin <= 0;
+            innerWidth = filled ? 0.0 : innerW - margin;
+            innerHeight = filled ? 0.0 : innerH - margin;
+        }
+
+        // Une tranche par angle echantillonne.
+        @Override
+        public int sliceCount() {
+            int count = 0;
+            for (double i = 0.0; i < 2 * Math.PI; i += (2 * Math.PI) / 100) {
+                ++count;
+            }
+            return count;
+        }
+
+        @Override
+        public int pointsPerSlice() {
+            int count = 0;
+            for (double wR = widthRadius - ellipseThickness, hR = heightRadius - ellipseThickness;
+                 wR < widthRadius + 1 && hR < heightRadius + 1; wR++,hR++) {
+                ++count;
+            }
+            return count;
+        }
+
+        // Memes anneaux que ellipseParametricEquationPoints sur un tour complet, sans le centre.
+        // Les angles sont retrouves avec les memes additions que la boucle d'origine.
+        @Override
+        public void sample(PointCloud cloud, int fromSlice, int toSlice) {
+            double start = 0.0;
+            for (int slice = 0; slice < fromSlice; ++slice) {
+                start += (2 * Math.PI) / 100;
+            }
+            int slice = fromSlice;
+            for (double i = start; i < 2 * Math.PI && slice < toSlice; i += (2 * Math.PI) / 100, ++slice) {
+                for (double wR = widthRadius - ellipseThickness, hR = heightRadius - ellipseThickness;
+                     wR < widthRadius + 1 && hR < heightRadius + 1; wR++,hR++) {
+                    double x = wR * Math.cos(i);
+                    double y = hR * Math.sin(i);
+                    if (Math.round(x) != 0 || Math.round(y) != 0) {
+                        cloud.add(x, y);
+                    }
+                }
+            }
+        }
+
+        // Une ellipse transformee reste une ellipse: ses demi-largeurs sont la norme
+        // de chaque ligne de la matrice appliquee aux deux rayons.
+        @Override
+        public BoundingBox getBounds(AffineTransform transform) {
+            if (outerWidth <= 0 || outerHeight <= 0) {
+                return BoundingBox.EMPTY;
+            }
+            double[][] matrix = transform.getMatrix();
+            double halfWidth = Math.hypot(matrix[0][0] * outerWidth, matrix[0][1] * outerHeight);
+            double halfHeight = Math.hypot(matrix[1][0] * outerWidth, matrix[1][1] * outerHeight);
+            return new BoundingBox(
+                    matrix[0][2] - halfWidth, matrix[1][2] - halfHeight,
+                    matrix[0][2] + halfWidth, matrix[1][2] + halfHeight);
+        }
+
+        @Override
+        public ShapeGeometry inflate(double margin) {
+            return new Geometry(widthRadius, heightRadius, this.margin + margin);
+        }
+
+        @Override
+        public int clip(double ox, double oy, double dx, double dy, double[] intervals) {
+            if (!solve(ox, oy, dx, dy, outerWidth, outerHeight, intervals, 0)) {
+                return 0;
+            }
+            if (innerWidth <= 0 || !solve(ox, oy, dx, dy, innerWidth, innerHeight, intervals, 2)) {
+                return 1;
+            }
+            // [debut exterieur, debut interieur] et [fin interieur, fin exterieur]
+            double outerEnd = intervals[1];
+            intervals[1] = intervals[2];
+            intervals[2] = intervals[3];
+            intervals[3] = outerEnd;
+            return 2;
+        }
+
+        // Resout ((ox + t dx) / a)^2 + ((oy + t dy) / b)^2 <= 1 pour t.
+        private static boolean solve(double ox, double oy, double dx, double dy,
+                                     double a, double b, double[] roots, int offset) {
+            double a2 = a * a;
+            double b2 = b * b;
+            double qa = dx * dx / a2 + dy * dy / b2;
+            double qb = 2 * (ox * dx / a2 + oy * dy / b2);
+            double qc = ox * ox / a2 + oy * oy / b2 - 1;
+            double discriminant = qb * qb - 4 * qa * qc;
+            // Une droite tangente (la premiere et la derniere ligne d'une ellipse, coupees a sa
+            // boite englobante) peut donner un discriminant a peine negatif a cause des arrondis.
+            if (discriminant < 0 && discriminant > -1e-9 * (qb * qb + Math.abs(4 * qa * qc))) {
+                discriminant = 0;
+            }
+            if (qa == 0.0 || discriminant < 0) {
+                return false;
+            }
+            double root = Math.sqrt(discriminant);
+            roots[offset] = (-qb - root) / (2 * qa);
+            roots[offset + 1] = (-qb + root) / (2 * qa);
+            return true;
+        }
+    }
 }
@@ -0,0 +1,128 @@
+package tp1;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Cache borne des lettres creees par un GlyphRegistry. Chaque lettre (et chaque lettre
+// transformee) n'est construite qu'une fois; les appels suivants recoivent une copie
+// qui partage ses points avec l'instance du cache (voir BaseShape.clone). Quand le cache
+// est plein, la lettre utilisee le moins recemment est retiree.
+public class GlyphCache {
+    public static final int DEFAULT_CAPACITY = 128;
+
+    private final int capacity;
+    private final GlyphRegistry registry;
+    private final Map<Key, BaseShape> glyphs;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public GlyphCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public GlyphCache(int capacity) {
+        this(capacity, GlyphRegistry.getDefault());
+    }
+
+    public GlyphCache(int capacity, GlyphRegistry registry) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("La capacite doit etre positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.registry = registry;
+        this.glyphs = new LinkedHashMap<Key, BaseShape>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, BaseShape> eldest) {
+                if (size() > GlyphCache.this.capacity) {
+                    ++evictionCount;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Retourne la lettre, construite au premier appel seulement.
+    public BaseShape get(char letter) throws Exception {
+        return get(letter, AffineTransform.IDENTITY);
+    }
+
+    // Retourne la lettre a laquelle on a applique la transformation.
+    public synchronized BaseShape get(char letter, AffineTransform transform) throws Exception {
+        Key key = new Key(letter, transform);
+        BaseShape glyph = glyphs.get(key);
+        if (glyph != null) {
+            ++hitCount;
+            return glyph.clone();
+        }
+        ++missCount;
+        if (transform.isIdentity()) {
+            glyph = registry.create(letter);
+        } else {
+            glyph = get(letter, AffineTransform.IDENTITY).transform(transform);
+        }
+        // Calcule la boite englobante une fois pour toutes: les copies en heritent.
+        glyph.getBounds();
+        glyphs.put(key, glyph);
+        return glyph.clone();
+    }
+
+    public synchronized void clear() {
+        glyphs.clear();
+    }
+
+    public synchronized int size() {
+        return glyphs.size();
+    }
+
+    public GlyphRegistry getRegistry() {
+        return registry;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "GlyphCache[size=" + glyphs.size() + "/" + capacity
+                + ", hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + "]";
+    }
+
+    private static final class Key {
+        private final char letter;
+        private final AffineTransform transform;
+
+        Key(char letter, AffineTransform transform) {
+            this.letter = letter;
+            this.transform = transform;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return letter == other.letter && transform.equals(other.transform);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * letter + transform.hashCode();
+        }
+    }
+}
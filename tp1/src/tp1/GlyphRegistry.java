@@ -0,0 +1,230 @@
+package tp1;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Definitions des lettres lues d'un fichier texte (voir glyphs.txt pour le format).
+// Les definitions sont rangees dans un tableau indexe par le code ASCII du caractere:
+// la recherche se fait en temps constant. Les lettres absentes du fichier sont
+// demandees a LetterFactory.
+public final class GlyphRegistry {
+    public static final String DEFAULT_PATH = "glyphs.txt";
+    // Propriete systeme permettant d'indiquer un autre fichier de lettres.
+    public static final String PATH_PROPERTY = "tp1.glyphs";
+    private static final int ASCII_SIZE = 128;
+    private static final double ARC_SECTORS = 100.0;
+
+    private static GlyphRegistry defaultRegistry;
+
+    private final Command[][] glyphs = new Command[ASCII_SIZE][];
+
+    // Registre vide: toutes les lettres viennent de LetterFactory.
+    public GlyphRegistry() {
+    }
+
+    // Retourne le registre charge au premier appel depuis DEFAULT_PATH (ou PATH_PROPERTY).
+    // Un fichier donne par PATH_PROPERTY doit exister. Si DEFAULT_PATH n'est pas dans le
+    // repertoire courant, un avertissement est affiche et le registre est vide: toutes les
+    // lettres viennent alors de LetterFactory.
+    public static synchronized GlyphRegistry getDefault() {
+        if (defaultRegistry == null) {
+            String property = System.getProperty(PATH_PROPERTY);
+            Path path = Paths.get(property != null ? property : DEFAULT_PATH);
+            try {
+                if (Files.exists(path)) {
+                    defaultRegistry = load(path);
+                } else if (property != null) {
+                    throw new NoSuchFileException(path.toAbsolutePath().toString(), null,
+                            "fichier de lettres donne par " + PATH_PROPERTY + " introuvable");
+                } else {
+                    System.err.println("Attention: " + path.toAbsolutePath()
+                            + " introuvable, seules les lettres de LetterFactory sont disponibles.");
+                    defaultRegistry = new GlyphRegistry();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return defaultRegistry;
+    }
+
+    // Charge le fichier. Il est petit et lu une seule fois: le lire d'un coup suffit, et le
+    // fichier n'est pas garde ouvert (une projection en memoire le bloquerait sous Windows).
+    public static GlyphRegistry load(Path path) throws IOException {
+        return parse(Files.readAllLines(path, StandardCharsets.US_ASCII));
+    }
+
+    // Lit des definitions, une commande par ligne.
+    public static GlyphRegistry parse(List<String> lines) {
+        GlyphRegistry registry = new GlyphRegistry();
+        List<Command> commands = null;
+        int current = -1;
+        int lineNumber = 0;
+        for (String line : lines) {
+            ++lineNumber;
+            String text = line.trim();
+            if (text.isEmpty() || text.charAt(0) == '#') {
+                continue;
+            }
+            String[] tokens = text.split("\\s+");
+            if (tokens[0].equals("glyph")) {
+                if (current >= 0) {
+                    registry.glyphs[current] = commands.toArray(new Command[0]);
+                }
+                current = parseCharacter(tokens, lineNumber);
+                commands = new ArrayList<>();
+            } else if (current < 0) {
+                throw new IllegalArgumentException("Ligne " + lineNumber + ": commande hors d'une lettre: " + text);
+            } else {
+                commands.add(Command.parse(tokens, lineNumber));
+            }
+        }
+        if (current >= 0) {
+            registry.glyphs[current] = commands.toArray(new Command[0]);
+        }
+        return registry;
+    }
+
+    private static int parseCharacter(String[] tokens, int lineNumber) {
+        if (tokens.length != 2) {
+            throw new IllegalArgumentException("Ligne " + lineNumber + ": lettre attendue apres glyph");
+        }
+        int code;
+        try {
+            code = tokens[1].length() == 1 ? tokens[1].charAt(0) : Integer.parseInt(tokens[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ligne " + lineNumber + ": lettre invalide: " + tokens[1]);
+        }
+        if (code < 0 || code >= ASCII_SIZE) {
+            throw new IllegalArgumentException("Ligne " + lineNumber + ": lettre hors ASCII: " + tokens[1]);
+        }
+        return code;
+    }
+
+    // Indique si la lettre est definie par le fichier.
+    public boolean contains(char letter) {
+        return letter < ASCII_SIZE && glyphs[letter] != null;
+    }
+
+    // Nombre de lettres definies par le fichier.
+    public int size() {
+        int count = 0;
+        for (Command[] glyph : glyphs) {
+            if (glyph != null) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    // Construit la lettre demandee.
+    public BaseShape create(char letter) throws Exception {
+        if (!contains(letter)) {
+            return LetterFactory.create(letter);
+        }
+        BaseShape glyph = new BaseShape(Collections.emptyList());
+        for (Command command : glyphs[letter]) {
+            glyph = command.apply(glyph);
+        }
+        return glyph;
+    }
+
+    private static final class Command {
+        private final String name;
+        private final double[] args;
+
+        private Command(String name, double[] args) {
+            this.name = name;
+            this.args = args;
+        }
+
+        static Command parse(String[] tokens, int lineNumber) {
+            double[] args = new double[tokens.length - 1];
+            try {
+                for (int i = 0; i < args.length; ++i) {
+                    args[i] = Double.parseDouble(tokens[i + 1]);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Ligne " + lineNumber + ": nombre invalide: " + e.getMessage());
+            }
+            int min, max;
+            switch (tokens[0]) {
+                case "rect":
+                case "ellipse": min = 2; max = 5; break;
+                case "circle": min = 1; max = 3; break;
+                case "arc": min = 4; max = 6; break;
+                case "move": min = 2; max = 2; break;
+                default:
+                    throw new IllegalArgumentException("Ligne " + lineNumber + ": commande inconnue: " + tokens[0]);
+            }
+            // Un deplacement demande toujours ses deux coordonnees.
+            if (args.length < min || args.length > max || args.length == min + 1) {
+                throw new IllegalArgumentException("Ligne " + lineNumber + ": nombre d'arguments invalide pour " + tokens[0]);
+            }
+            return new Command(tokens[0], args);
+        }
+
+        BaseShape apply(BaseShape glyph) {
+            switch (name) {
+                case "rect":
+                    glyph.add(place(new Rectangle(args[0], args[1]), 2));
+                    return glyph;
+                case "ellipse":
+                    glyph.add(place(new Ellipse(args[0], args[1]), 2));
+                    return glyph;
+                case "circle":
+                    glyph.add(place(new Circle(args[0]), 1));
+                    return glyph;
+                case "arc":
+                    Set<Point2d> arc = arcPoints(args[0], args[1], args[2] * Math.PI, args[3] * Math.PI);
+                    if (args.length > 4) {
+                        arc = new BaseShape(arc).translate(new Point2d(args[4], args[5])).getCoords();
+                    }
+                    glyph.removeAll(arc);
+                    return glyph;
+                default:
+                    return glyph.translate(new Point2d(args[0], args[1]));
+            }
+        }
+
+        // Points de l'anneau d'Ellipse dont l'angle est dans [from, upTo[ (modulo un tour).
+        // Les angles sont ceux de l'echantillonnage de l'anneau, qui part de 0: un arc qui
+        // commence ailleurs retire quand meme exactement les points de l'anneau.
+        private static Set<Point2d> arcPoints(double widthRadius, double heightRadius, double from, double upTo) {
+            Set<Point2d> points = new HashSet<>();
+            double turn = 2 * Math.PI;
+            for (double i = 0; i < turn; i += turn / ARC_SECTORS) {
+                double offset = (i - from) % turn;
+                if (offset < 0) {
+                    offset += turn;
+                }
+                if (offset < upTo - from) {
+                    points.addAll(Ellipse.ellipseParametricEquationPoints(
+                            widthRadius, heightRadius, ARC_SECTORS, i, Math.nextUp(i)));
+                }
+            }
+            return points;
+        }
+
+        // Tourne la forme (degres) puis la deplace, selon les arguments qui suivent sa taille.
+        private BaseShape place(BaseShape shape, int offset) {
+            if (args.length > offset + 2) {
+                shape = shape.rotate(Math.toRadians(args[offset + 2]));
+            }
+            if (args.length > offset) {
+                shape = shape.translate(new Point2d(args[offset], args[offset + 1]));
+            }
+            return shape;
+        }
+    }
+}
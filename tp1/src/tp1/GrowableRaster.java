@@ -0,0 +1,137 @@
+package tp1;
+
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+
+// Canevas d'etiquettes: chaque forme dessinee recoit une etiquette (1, 2, 3, ...) et ses
+// pixels gardent cette etiquette. Les couleurs ne sont choisies qu'a la creation de l'image.
+// Le canevas double de taille au besoin, sur l'axe que la forme depasse seulement.
+public class GrowableRaster {
+    private final TileRenderer renderer;
+    private final int margin;
+    private int[] labels;
+    private int width;
+    private int height;
+    private int labelCount;
+
+    public GrowableRaster(int margin) {
+        this(margin, 0, 0);
+    }
+
+    // Cree un canevas deja dimensionne, pour eviter les copies lors de l'agrandissement.
+    public GrowableRaster(int margin, int width, int height) {
+        this.renderer = new TileRenderer(margin);
+        this.margin = margin;
+        this.labels = new int[Math.multiplyExact(width, height)];
+        this.width = width;
+        this.height = height;
+        this.labelCount = 0;
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getLabelCount() { return labelCount; }
+
+    // Dessine la forme avec une nouvelle etiquette et retourne cette etiquette.
+    public int draw(BaseShape shape) {
+        BoundingBox bounds = shape.getBounds();
+        int label = ++labelCount;
+        if (bounds.isEmpty()) {
+            return label;
+        }
+        ensureSize((int) Math.ceil(bounds.getMaxX()) + margin + 1, (int) Math.ceil(bounds.getMaxY()) + margin + 1);
+        renderer.render(Collections.singletonList(shape), new int[] { label }, labels, width, height);
+        return label;
+    }
+
+    // Retourne l'etiquette du pixel (x, y), ou 0 s'il est vide ou hors du canevas.
+    public int labelAt(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height ? labels[y * width + x] : 0;
+    }
+
+    // Indique si la forme, dessinee avec la marge du canevas, couvrirait un pixel deja etiquete.
+    public boolean touches(BaseShape shape) {
+        boolean[] touched = { false };
+        shape.rasterize(margin, 0, height - 1,
+                (y, fromX, toX) -> touched[0] |= labelsIn(y, fromX, toX),
+                (x, y) -> {
+                    int px = (int) Math.round(x);
+                    int py = (int) Math.round(y);
+                    for (int row = py - margin; row <= py + margin && !touched[0]; ++row) {
+                        touched[0] = labelsIn(row, px - margin, px + margin);
+                    }
+                });
+        return touched[0];
+    }
+
+    // Indique si un pixel de la ligne y, entre fromX et toX inclus, est etiquete.
+    private boolean labelsIn(int y, int fromX, int toX) {
+        if (y < 0 || y >= height) {
+            return false;
+        }
+        int offset = y * width;
+        for (int x = Math.max(fromX, 0); x <= Math.min(toX, width - 1); ++x) {
+            if (labels[offset + x] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Copie la region [0, imageWidth[ x [0, imageHeight[ dans une nouvelle image.
+    // Une etiquette l est remplacee par colors[l - 1]; les pixels vides restent noirs.
+    public BufferedImage toImage(int imageWidth, int imageHeight, int[] colors) {
+        BufferedImage img = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB);
+        copyTo(new IntPixelRaster(img), colors);
+        return img;
+    }
+
+    // Copie les etiquettes dans le raster, en couleurs, par suites de pixels de meme etiquette.
+    // Les pixels vides du raster ne sont pas modifies.
+    public void copyTo(PixelRaster target, int[] colors) {
+        int rows = Math.min(target.getHeight(), height);
+        int columns = Math.min(target.getWidth(), width);
+        for (int y = 0; y < rows; ++y) {
+            int offset = y * width;
+            int x = 0;
+            while (x < columns) {
+                int label = labels[offset + x];
+                int end = x + 1;
+                while (end < columns && labels[offset + end] == label) {
+                    ++end;
+                }
+                if (label != 0) {
+                    target.fillRow(y, x, end - 1, colors[label - 1]);
+                }
+                x = end;
+            }
+        }
+    }
+
+    private void ensureSize(int neededWidth, int neededHeight) {
+        if (neededWidth <= width && neededHeight <= height) {
+            return;
+        }
+        int newWidth = grow(width, neededWidth);
+        int newHeight = grow(height, neededHeight);
+        if ((long) newWidth * newHeight > Integer.MAX_VALUE) {
+            // Le doublement ferait deborder le tableau: on s'en tient a la taille demandee.
+            newWidth = Math.max(width, neededWidth);
+            newHeight = Math.max(height, neededHeight);
+        }
+        int[] newLabels = new int[Math.multiplyExact(newWidth, newHeight)];
+        for (int y = 0; y < height; ++y) {
+            System.arraycopy(labels, y * width, newLabels, y * newWidth, width);
+        }
+        labels = newLabels;
+        width = newWidth;
+        height = newHeight;
+    }
+
+    private static int grow(int size, int needed) {
+        if (needed <= size) {
+            return size;
+        }
+        return (int) Math.min(Math.max(needed, 2L * size), Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,245 @@
+package tp1;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Produit des images de texte en trois etapes, chacune sur son propre thread:
+// placement des lettres, dessin, puis encodage JPEG et ecriture du fichier. Les etapes
+// sont reliees par des files bornees: le placement de l'image N+1 se fait pendant
+// l'encodage de l'image N, et submit bloque quand la premiere file est pleine.
+// Le temps passe dans chaque etape et la taille des files sont exposes via getStats.
+// Tous les travaux partagent le meme cache de lettres: chaque lettre n'est construite qu'une fois.
+public class ImagePipeline implements AutoCloseable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+    public enum Stage { LAYOUT, RASTERIZE, ENCODE }
+
+    // Marque la fin des travaux; chaque etape la transmet a la suivante avant de s'arreter.
+    private static final Job END = new Job(null, null, false);
+
+    private final Map<Stage, StageWorker> workers = new EnumMap<>(Stage.class);
+    private final GlyphCache glyphCache = new GlyphCache();
+    private boolean closed;
+
+    public ImagePipeline() {
+        this(DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public ImagePipeline(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("La capacite doit etre positive: " + queueCapacity);
+        }
+        StageWorker encode = new StageWorker(Stage.ENCODE, queueCapacity, null);
+        StageWorker rasterize = new StageWorker(Stage.RASTERIZE, queueCapacity, encode);
+        StageWorker layout = new StageWorker(Stage.LAYOUT, queueCapacity, rasterize);
+        workers.put(Stage.LAYOUT, layout);
+        workers.put(Stage.RASTERIZE, rasterize);
+        workers.put(Stage.ENCODE, encode);
+        for (StageWorker worker : workers.values()) {
+            worker.start();
+        }
+    }
+
+    // Ajoute un texte a produire dans <fileName>.jpg. Un '\\n' fait passer a la ligne suivante.
+    // Le resultat contient le fichier ecrit, ou l'exception de l'etape qui a echoue.
+    public CompletableFuture<File> submit(String text, String fileName, boolean saveInWhite)
+            throws InterruptedException {
+        Job job = new Job(text, fileName, saveInWhite);
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Le pipeline est ferme");
+            }
+            workers.get(Stage.LAYOUT).put(job);
+        }
+        return job.result;
+    }
+
+    public StageStats getStats(Stage stage) {
+        return workers.get(stage).stats();
+    }
+
+    public GlyphCache getGlyphCache() {
+        return glyphCache;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("ImagePipeline[");
+        for (Stage stage : Stage.values()) {
+            builder.append(stage == Stage.LAYOUT ? "" : ", ").append(getStats(stage));
+        }
+        return builder.append("]").toString();
+    }
+
+    // Termine les travaux deja soumis, puis arrete les threads. Si le thread appelant est
+    // interrompu pendant l'attente, il garde son interruption et recoit une IllegalStateException.
+    @Override
+    public void close() {
+        try {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                workers.get(Stage.LAYOUT).put(END);
+                closed = true;
+            }
+            for (StageWorker worker : workers.values()) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompu pendant la fermeture du pipeline", e);
+        }
+    }
+
+    private void process(Stage stage, Job job) throws Exception {
+        switch (stage) {
+            case LAYOUT:
+                job.placer = new LetterPlacer();
+                job.placer.setGlyphCache(glyphCache);
+                boolean newLine = false;
+                for (char letter : job.text.toCharArray()) {
+                    if (letter == '\n') {
+                        newLine = true;
+                    } else if (newLine) {
+                        job.placer.placeNextln(letter);
+                        newLine = false;
+                    } else {
+                        job.placer.placeNext(letter);
+                    }
+                }
+                break;
+            case RASTERIZE:
+                job.image = job.placer.renderImage(job.saveInWhite);
+                job.placer = null;
+                break;
+            default:
+                File file = LetterPlacer.writeImage(job.image, job.fileName);
+                job.image = null;
+                job.result.complete(file);
+        }
+    }
+
+    // Statistiques d'une etape, au moment de l'appel a getStats.
+    public static final class StageStats {
+        private final Stage stage;
+        private final long processed;
+        private final long failed;
+        private final long busyNanos;
+        private final int queueDepth;
+        private final int maxQueueDepth;
+
+        StageStats(Stage stage, long processed, long failed, long busyNanos, int queueDepth, int maxQueueDepth) {
+            this.stage = stage;
+            this.processed = processed;
+            this.failed = failed;
+            this.busyNanos = busyNanos;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+        }
+
+        public Stage getStage() { return stage; }
+        // Nombre de travaux termines par l'etape, avec ou sans erreur.
+        public long getProcessed() { return processed; }
+        public long getFailed() { return failed; }
+        // Temps total passe a traiter des travaux, en nanosecondes.
+        public long getBusyNanos() { return busyNanos; }
+        // Travaux en attente dans la file d'entree de l'etape.
+        public int getQueueDepth() { return queueDepth; }
+        public int getMaxQueueDepth() { return maxQueueDepth; }
+
+        public double getAverageMillis() {
+            return processed == 0 ? 0.0 : busyNanos / 1e6 / processed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d termines (%d erreurs), %.2f ms en moyenne, file %d (max %d)",
+                    stage, processed, failed, getAverageMillis(), queueDepth, maxQueueDepth);
+        }
+    }
+
+    private static final class Job {
+        final String text;
+        final String fileName;
+        final boolean saveInWhite;
+        final CompletableFuture<File> result = new CompletableFuture<>();
+        // Resultats intermediaires, relaches des que l'etape suivante les a utilises.
+        LetterPlacer placer;
+        BufferedImage image;
+
+        Job(String text, String fileName, boolean saveInWhite) {
+            this.text = text;
+            this.fileName = fileName;
+            this.saveInWhite = saveInWhite;
+        }
+    }
+
+    private final class StageWorker extends Thread {
+        private final Stage stage;
+        private final BlockingQueue<Job> queue;
+        private final StageWorker next;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+        StageWorker(Stage stage, int capacity, StageWorker next) {
+            super("ImagePipeline-" + stage.name().toLowerCase());
+            this.stage = stage;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.next = next;
+        }
+
+        void put(Job job) throws InterruptedException {
+            queue.put(job);
+            maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+        }
+
+        StageStats stats() {
+            return new StageStats(stage, processed.get(), failed.get(), busyNanos.get(),
+                    queue.size(), maxQueueDepth.get());
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Job job = queue.take();
+                    if (job == END) {
+                        if (next != null) {
+                            next.put(END);
+                        }
+                        return;
+                    }
+                    long start = System.nanoTime();
+                    boolean ok = true;
+                    // Une erreur (meme une Error) n'echoue que ce travail: le thread continue
+                    // avec les suivants, sinon les travaux suivants ne termineraient jamais.
+                    try {
+                        process(stage, job);
+                    } catch (Throwable e) {
+                        ok = false;
+                        job.result.completeExceptionally(e);
+                    }
+                    busyNanos.addAndGet(System.nanoTime() - start);
+                    processed.incrementAndGet();
+                    if (!ok) {
+                        failed.incrementAndGet();
+                    } else if (next != null) {
+                        next.put(job);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
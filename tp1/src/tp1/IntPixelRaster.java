@@ -0,0 +1,37 @@
+package tp1;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+// Raster garde dans un tableau d'entiers, ligne par ligne (width valeurs par ligne).
+public class IntPixelRaster implements PixelRaster {
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+
+    public IntPixelRaster(int[] pixels, int width, int height) {
+        if (pixels.length < width * height) {
+            throw new IllegalArgumentException("Le tableau est trop petit pour " + width + "x" + height);
+        }
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+    }
+
+    // Ecrit directement dans les pixels d'une image TYPE_INT_RGB.
+    public IntPixelRaster(BufferedImage img) {
+        this(((DataBufferInt) img.getRaster().getDataBuffer()).getData(), img.getWidth(), img.getHeight());
+    }
+
+    @Override
+    public int getWidth() { return width; }
+
+    @Override
+    public int getHeight() { return height; }
+
+    @Override
+    public void fillRow(int y, int fromX, int toX, int color) {
+        Arrays.fill(pixels, y * width + fromX, y * width + toX + 1, color);
+    }
+}
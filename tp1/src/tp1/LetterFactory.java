@@ -10,6 +10,20 @@ public final class LetterFactory {
     final static Double halfMaxWidth = maxWidth / 2;
     final static Double stripeThickness = maxHeight / 10;
 
+    // Cree la lettre demandee.
+    public static BaseShape create(char letter) throws Exception {
+        switch (letter) {
+            case 'H': return create_H();
+            case 'e': return create_e();
+            case 'l': return create_l();
+            case 'o': return create_o();
+            case 'W': return create_W();
+            case 'r': return create_r();
+            case 'd': return create_d();
+            default: throw new Exception("Cette lettre n'est pas valide: " + letter);
+        }
+    }
+
     public static BaseShape create_H() {
         Double spacing = stripeThickness * 2;
         BaseShape mainStripe = new Rectangle(stripeThickness, maxHeight);
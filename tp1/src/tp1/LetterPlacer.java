@@ -6,46 +6,95 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class LetterPlacer {
     private final static Integer enlargeFactor = 3;
     private final static Double padding = 20.0;
     private final static Integer maxColor = 256;
-    private Collection<Collection<Point2d>> coordsList;
-    private BaseShape previousLetter;
+    private Collection<BaseShape> placedShapes;
+    // En mode streaming, les lettres sont dessinees des qu'elles sont placees et
+    // seules leurs etiquettes sont gardees (placedShapes reste vide).
+    private GrowableRaster raster;
+    private int placedCount;
+    private BoundingBox previousBounds;
+    private BoundingBox placedBounds;
     private int numberOfLines;
+    private GlyphCache glyphCache;
+    private final ShapeIndex shapeIndex;
 
     public LetterPlacer() {
-        coordsList = new ArrayList<>();
-        previousLetter = new Rectangle(0.0, 0.0);
+        this(false);
+    }
+
+    // streaming: dessine chaque lettre a sa mise en place, puis relache ses points. La
+    // memoire utilisee est alors bornee par une lettre plus le canevas.
+    public LetterPlacer(boolean streaming) {
+        this(streaming ? new GrowableRaster(enlargeFactor) : null);
+    }
+
+    // Mode streaming, avec un canevas deja dimensionne pour le texte a placer.
+    public LetterPlacer(int width, int height) {
+        this(new GrowableRaster(enlargeFactor, width, height));
+    }
+
+    private LetterPlacer(GrowableRaster raster) {
+        this.raster = raster;
+        placedShapes = new ArrayList<>();
+        placedCount = 0;
+        previousBounds = new Rectangle(0.0, 0.0).getBounds();
+        placedBounds = BoundingBox.EMPTY;
         numberOfLines = 1;
+        glyphCache = new GlyphCache();
+        shapeIndex = new ShapeIndex(enlargeFactor);
+    }
+
+    public boolean isStreaming() {
+        return raster != null;
     }
 
     public void placeNext(char letter) throws Exception {
         BaseShape nextLetter = getNextLetter(letter);
-        previousLetter = insertShape(nextLetter, new Point2d(
-                        PointOperator.getMaxCoord(previousLetter.getCoords()).X() + padding,
+        insertShape(nextLetter, new Point2d(
+                        previousBounds.getMaxX() + padding,
                         (numberOfLines - 1) * LetterFactory.maxHeight + numberOfLines * padding));
     }
 
     public void placeNextln(char letter) throws Exception {
         BaseShape nextLetter = getNextLetter(letter);
-        previousLetter = insertShape(nextLetter, new Point2d(padding,
+        insertShape(nextLetter, new Point2d(padding,
                         numberOfLines++ * LetterFactory.maxHeight + numberOfLines * padding));
     }
 
     private BaseShape getNextLetter(char letter) throws Exception {
-        switch (letter) {
-            case 'H': return LetterFactory.create_H();
-            case 'e': return LetterFactory.create_e();
-            case 'l': return LetterFactory.create_l();
-            case 'o': return LetterFactory.create_o();
-            case 'W': return LetterFactory.create_W();
-            case 'r': return LetterFactory.create_r();
-            case 'd': return LetterFactory.create_d();
-            default: throw new Exception("Cette lettre n'est pas valide: " + letter);
-        }
+        return glyphCache.get(letter);
+    }
+
+    // Remplace le cache de lettres, par exemple pour le partager entre plusieurs LetterPlacer.
+    public void setGlyphCache(GlyphCache glyphCache) {
+        this.glyphCache = glyphCache;
+    }
+
+    public GlyphCache getGlyphCache() {
+        return glyphCache;
+    }
+
+    // Index des lettres placees, identifiees par leur ordre de placement (sans les espaces).
+    // En mode streaming, l'index ne garde que leurs boites englobantes.
+    public ShapeIndex getShapeIndex() {
+        return shapeIndex;
+    }
+
+    // Retourne la lettre dessinee au pixel (x, y) de l'image, ou -1.
+    // En mode streaming, c'est l'etiquette du canevas: la lettre n est dessinee avec l'etiquette n + 1.
+    public int letterAt(int x, int y) {
+        return isStreaming() ? raster.labelAt(x, y) - 1 : shapeIndex.shapeAt(x, y);
+    }
+
+    // Indique si la lettre, placee a la position donnee (meme placement que placeNext),
+    // toucherait une lettre deja placee. Utile pour verifier un crenage.
+    public boolean collides(char letter, Point2d position) throws Exception {
+        BaseShape placed = placeAt(getNextLetter(letter), position);
+        return isStreaming() ? raster.touches(placed) : shapeIndex.collides(placed);
     }
 
     private static int getRandomRGB() {
@@ -61,44 +110,91 @@ public class LetterPlacer {
                 255 * 0x000001;
     }
 
-    private BaseShape insertShape(BaseShape nextLetter, Point2d nextPosition) {
-        nextLetter = nextLetter.translate(PointOperator.getMaxCoord(nextLetter.getCoords()))
-                .translate(nextPosition);
-        coordsList.add(nextLetter.getCoords());
-        return nextLetter;
+    private void insertShape(BaseShape nextLetter, Point2d nextPosition) {
+        if (nextLetter.getBounds().isEmpty()) {
+            // Lettre sans points (l'espace): on avance seulement la position.
+            previousBounds = new BoundingBox(nextPosition.X(), nextPosition.Y(),
+                    nextPosition.X() + LetterFactory.halfMaxWidth, nextPosition.Y());
+            return;
+        }
+        nextLetter = placeAt(nextLetter, nextPosition);
+        previousBounds = nextLetter.getBounds();
+        placedBounds = placedBounds.union(previousBounds);
+        if (isStreaming()) {
+            // Les pixels ne sont calcules qu'une fois, par le canevas.
+            shapeIndex.add(nextLetter.getBounds(enlargeFactor));
+            raster.draw(nextLetter);
+        } else {
+            shapeIndex.add(nextLetter);
+            placedShapes.add(nextLetter);
+        }
+        ++placedCount;
+    }
+
+    // Deplace la lettre a la position. Les lettres sont dessinees dans un cadre de maxHeight
+    // de haut centre sur l'origine (voir glyphs.txt): on aligne le bas de ce cadre, et non celui
+    // de la lettre, pour qu'une apostrophe reste en haut et un tiret a mi-hauteur. La derniere
+    // ligne du cadre est 99 pour une bande echantillonnee sur une grille et 100 pour un anneau
+    // d'ellipse; une lettre qui finit sur l'une de ces lignes garde la sienne, comme les lettres
+    // de LetterFactory, alignees sur leur coin maximal. En X, la lettre est decalee de sa partie
+    // droite, sans que son bord gauche passe avant la position.
+    private static BaseShape placeAt(BaseShape letter, Point2d position) {
+        BoundingBox bounds = letter.getBounds();
+        double bottom = Math.min(Math.max(bounds.getMaxY(), LetterFactory.halfMaxHeight - 1),
+                LetterFactory.halfMaxHeight);
+        double right = Math.max(bounds.getMaxX(), - bounds.getMinX() - 1);
+        return letter.translate(new Point2d(right, bottom)).translate(position);
     }
 
     public File saveImage(String fileName, boolean saveInWhite) throws IOException {
-        Point2d max = PointOperator.getMaxCoord(coordsList.stream()
-                .flatMap(Collection::stream)
-                .collect(Collectors.toList()));
-        int[][] pixels = new int[(int)(max.Y() + padding)][(int)(max.X() + padding)];
-        for (Collection<Point2d> coords : coordsList) {
-            int color = saveInWhite ? getWhite() : getRandomRGB();
-            for (Point2d point : coords) {
-                enlarge(pixels, (int)Math.round(point.Y()), (int)Math.round(point.X()), color);
-            }
-        }
+        return writeImage(renderImage(saveInWhite), fileName);
+    }
+
+    // Dessine les lettres placees dans une nouvelle image, sans l'ecrire.
+    public BufferedImage renderImage(boolean saveInWhite) {
+        int[] colors = getColors(saveInWhite);
+        int width = getImageWidth();
+        int height = getImageHeight();
+        return isStreaming()
+                ? raster.toImage(width, height, colors)
+                : new TileRenderer(enlargeFactor).render(new ArrayList<>(placedShapes), colors, width, height);
+    }
 
-        int[] flatPixels = Arrays.stream(pixels)
-                .flatMapToInt(Arrays::stream)
-                .toArray();
-        BufferedImage img = new BufferedImage(pixels[0].length, pixels.length,
-                BufferedImage.TYPE_INT_RGB);
-        img.setRGB(0, 0, pixels[0].length, pixels.length,
-                flatPixels, 0, pixels[0].length);
+    // Encode l'image en JPEG dans <fileName>.jpg.
+    public static File writeImage(BufferedImage img, String fileName) throws IOException {
         File imgFile = new File(fileName + ".jpg");
         ImageIO.write(img, "jpg", imgFile);
         return imgFile;
     }
 
-    private void enlarge(int[][] pixels, int y, int x, int color) {
-        for (int i = -enlargeFactor; i <= enlargeFactor; ++i) {
-            for (int j = -enlargeFactor; j <= enlargeFactor; ++j) {
-                try {
-                    pixels[j + y][i + x] = color;
-                } catch (ArrayIndexOutOfBoundsException e) {}
+    // Ecrit l'image sans compression (PPM binaire) en dessinant directement dans le fichier
+    // projete en memoire: aucun tableau de pixels n'est cree dans le tas.
+    public File saveRawImage(String fileName, boolean saveInWhite) throws IOException {
+        int[] colors = getColors(saveInWhite);
+        File imgFile = new File(fileName + ".ppm");
+        try (MappedPpmRaster target = MappedPpmRaster.create(imgFile.toPath(), getImageWidth(), getImageHeight())) {
+            if (isStreaming()) {
+                raster.copyTo(target, colors);
+            } else {
+                new TileRenderer(enlargeFactor).render(new ArrayList<>(placedShapes), colors, target);
             }
         }
+        return imgFile;
+    }
+
+    private int[] getColors(boolean saveInWhite) {
+        int[] colors = new int[placedCount];
+        for (int i = 0; i < colors.length; ++i) {
+            colors[i] = saveInWhite ? getWhite() : getRandomRGB();
+        }
+        return colors;
+    }
+
+    private int getImageWidth() {
+        return (int)(placedBounds.getMaxX() + padding);
+    }
+
+    private int getImageHeight() {
+        return (int)(placedBounds.getMaxY() + padding);
     }
 }
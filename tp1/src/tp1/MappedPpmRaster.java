@@ -0,0 +1,122 @@
+package tp1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Image PPM binaire (P6, 3 octets RGB par pixel, sans compression) projetee en memoire.
+// Le renderer ecrit directement dans le fichier: les pixels ne passent pas par le tas,
+// et le canevas peut etre plus grand que la memoire de la JVM. Le fichier est decoupe en
+// plusieurs projections de lignes entieres, chacune sous la limite de 2 Go d'un tampon.
+// Un nouveau fichier est rempli de zeros, c'est-a-dire de noir.
+public class MappedPpmRaster implements PixelRaster, Closeable {
+    private static final int BYTES_PER_PIXEL = 3;
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int width;
+    private final int height;
+    private final int rowsPerSegment;
+
+    private MappedPpmRaster(FileChannel channel, int width, int height) throws IOException {
+        this.channel = channel;
+        this.width = width;
+        this.height = height;
+        byte[] header = ("P6\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII);
+        channel.write(ByteBuffer.wrap(header), 0);
+        long rowBytes = (long) width * BYTES_PER_PIXEL;
+        rowsPerSegment = (int) Math.max(1, Math.min(height, MAX_SEGMENT_BYTES / Math.max(rowBytes, 1)));
+        segments = new MappedByteBuffer[(height + rowsPerSegment - 1) / rowsPerSegment];
+        for (int i = 0; i < segments.length; ++i) {
+            int rows = Math.min(rowsPerSegment, height - i * rowsPerSegment);
+            long position = header.length + (long) i * rowsPerSegment * rowBytes;
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, rows * rowBytes);
+        }
+    }
+
+    // Cree (ou remplace) le fichier et le projette en memoire.
+    public static MappedPpmRaster create(Path path, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Dimensions invalides: " + width + "x" + height);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            return new MappedPpmRaster(channel, width, height);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int getWidth() { return width; }
+
+    @Override
+    public int getHeight() { return height; }
+
+    @Override
+    public void fillRow(int y, int fromX, int toX, int color) {
+        MappedByteBuffer segment = segments[y / rowsPerSegment];
+        int offset = ((y % rowsPerSegment) * width + fromX) * BYTES_PER_PIXEL;
+        byte red = (byte) (color >> 16);
+        byte green = (byte) (color >> 8);
+        byte blue = (byte) color;
+        for (int x = fromX; x <= toX; ++x, offset += BYTES_PER_PIXEL) {
+            segment.put(offset, red);
+            segment.put(offset + 1, green);
+            segment.put(offset + 2, blue);
+        }
+    }
+
+    // Retourne la couleur RGB du pixel.
+    public int getPixel(int x, int y) {
+        MappedByteBuffer segment = segments[y / rowsPerSegment];
+        int offset = ((y % rowsPerSegment) * width + x) * BYTES_PER_PIXEL;
+        return (segment.get(offset) & 0xFF) << 16 | (segment.get(offset + 1) & 0xFF) << 8
+                | (segment.get(offset + 2) & 0xFF);
+    }
+
+    // Ecrit les pages modifiees sur le disque, libere les projections et ferme le fichier.
+    // Le fichier est ferme meme si l'ecriture echoue. Le raster n'est plus utilisable ensuite.
+    @Override
+    public void close() throws IOException {
+        try {
+            for (MappedByteBuffer segment : segments) {
+                if (segment != null) {
+                    segment.force();
+                }
+            }
+        } finally {
+            for (int i = 0; i < segments.length; ++i) {
+                if (segments[i] != null) {
+                    unmap(segments[i]);
+                    segments[i] = null;
+                }
+            }
+            channel.close();
+        }
+    }
+
+    // Une projection reste en place jusqu'a ce que le ramasse-miettes recupere son tampon, et
+    // bloque le fichier d'ici la (sous Windows, il ne peut etre ni supprime ni remplace). Le JDK
+    // n'offre pas d'API publique pour la liberer: on passe par sun.misc.Unsafe.invokeCleaner,
+    // et si elle n'est pas disponible, la liberation est laissee au ramasse-miettes.
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field unsafe = unsafeClass.getDeclaredField("theUnsafe");
+            unsafe.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(unsafe.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Liberee plus tard par le ramasse-miettes.
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package tp1;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Echantillonne une geometrie, placee par sa transformation, en repartissant ses tranches
+// entre les threads du pool fork/join. Chaque tache remplit son propre nuage, et les
+// nuages partiels sont recolles dans l'ordre des tranches: le resultat est le meme
+// qu'avec un seul thread.
+final class ParallelSampler {
+    // En dessous de ce nombre de points, l'echantillonnage se fait sur le thread appelant.
+    static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    private ParallelSampler() {
+    }
+
+    static PointCloud sample(ShapeGeometry geometry, AffineTransform transform) {
+        int slices = geometry.sliceCount();
+        long points = (long) slices * geometry.pointsPerSlice();
+        if (points < PARALLEL_THRESHOLD || slices < 2) {
+            return sampleSlices(geometry, transform, 0, slices);
+        }
+        // Des taches d'environ PARALLEL_THRESHOLD / 4 points, au moins une tranche chacune.
+        int grain = (int) Math.max(1, (long) slices * (PARALLEL_THRESHOLD / 4) / points);
+        return ForkJoinPool.commonPool().invoke(new SampleTask(geometry, transform, 0, slices, grain));
+    }
+
+    private static PointCloud sampleSlices(ShapeGeometry geometry, AffineTransform transform,
+                                           int fromSlice, int toSlice) {
+        PointCloud cloud = new PointCloud((toSlice - fromSlice) * Math.max(geometry.pointsPerSlice(), 1));
+        geometry.sample(cloud, fromSlice, toSlice);
+        transform.apply(cloud);
+        return cloud;
+    }
+
+    private static final class SampleTask extends RecursiveTask<PointCloud> {
+        private static final long serialVersionUID = 1L;
+
+        private final ShapeGeometry geometry;
+        private final AffineTransform transform;
+        // Tranches [fromSlice, toSlice[
+        private final int fromSlice, toSlice;
+        private final int grain;
+
+        SampleTask(ShapeGeometry geometry, AffineTransform transform, int fromSlice, int toSlice, int grain) {
+            this.geometry = geometry;
+            this.transform = transform;
+            this.fromSlice = fromSlice;
+            this.toSlice = toSlice;
+            this.grain = grain;
+        }
+
+        @Override
+        protected PointCloud compute() {
+            if (toSlice - fromSlice <= grain) {
+                return sampleSlices(geometry, transform, fromSlice, toSlice);
+            }
+            int middle = fromSlice + (toSlice - fromSlice) / 2;
+            SampleTask right = new SampleTask(geometry, transform, middle, toSlice, grain);
+            right.fork();
+            PointCloud left = new SampleTask(geometry, transform, fromSlice, middle, grain).compute();
+            left.addAll(right.join());
+            return left;
+        }
+    }
+}
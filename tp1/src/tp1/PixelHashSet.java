@@ -0,0 +1,198 @@
+package tp1;
+
+import java.util.Arrays;
+
+// Ensemble de pixels disperses, utilise par PixelSet quand sa matrice de bits serait
+// surtout vide. Chaque pixel est une cle long (ligne, puis colonne) rangee par adressage
+// ouvert avec sondage lineaire; un retrait recule les cles suivantes de la sequence au
+// lieu de laisser une pierre tombale. Le tri des cles donne l'ordre ligne par ligne.
+final class PixelHashSet {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int MIN_SLOTS = 16;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    // La cle EMPTY (le pixel (Integer.MIN_VALUE, Integer.MIN_VALUE)) est gardee a part.
+    private boolean hasEmptyKey;
+
+    PixelHashSet(int expectedSize) {
+        allocate(slotsFor(expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean add(int x, int y) {
+        long key = key(x, y);
+        if (key == EMPTY) {
+            boolean added = !hasEmptyKey;
+            hasEmptyKey = true;
+            size += added ? 1 : 0;
+            return added;
+        }
+        int slot = find(key);
+        if (keys[slot] == key) {
+            return false;
+        }
+        keys[slot] = key;
+        if (++size > keys.length / 2) {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    boolean contains(int x, int y) {
+        long key = key(x, y);
+        return key == EMPTY ? hasEmptyKey : keys[find(key)] == key;
+    }
+
+    boolean remove(int x, int y) {
+        long key = key(x, y);
+        if (key == EMPTY) {
+            boolean removed = hasEmptyKey;
+            hasEmptyKey = false;
+            size -= removed ? 1 : 0;
+            return removed;
+        }
+        int hole = find(key);
+        if (keys[hole] != key) {
+            return false;
+        }
+        // Recule les cles qui suivent le trou et qui peuvent y etre rangees.
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = home(keys[next]);
+            if (((hole - home) & mask) < ((next - home) & mask)) {
+                keys[hole] = keys[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        --size;
+        return true;
+    }
+
+    // Retire les pixels qui sont aussi dans l'autre ensemble.
+    void removeAll(PixelSet other) {
+        long[] oldKeys = keys;
+        boolean keepEmptyKey = hasEmptyKey && !other.contains(Integer.MIN_VALUE, Integer.MIN_VALUE);
+        int kept = keepEmptyKey ? 1 : 0;
+        for (long key : oldKeys) {
+            if (key != EMPTY && !other.contains(x(key), y(key))) {
+                ++kept;
+            }
+        }
+        allocate(slotsFor(kept));
+        hasEmptyKey = keepEmptyKey;
+        size = kept;
+        for (long key : oldKeys) {
+            if (key != EMPTY && !other.contains(x(key), y(key))) {
+                keys[find(key)] = key;
+            }
+        }
+    }
+
+    // Indique si un des pixels est aussi dans l'autre ensemble.
+    boolean intersects(PixelSet other) {
+        if (hasEmptyKey && other.contains(Integer.MIN_VALUE, Integer.MIN_VALUE)) {
+            return true;
+        }
+        for (long key : keys) {
+            if (key != EMPTY && other.contains(x(key), y(key))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Parcourt les pixels ligne par ligne, de gauche a droite.
+    void forEach(PixelSet.PixelVisitor visitor) {
+        long[] sorted = new long[size];
+        int count = 0;
+        if (hasEmptyKey) {
+            sorted[count++] = EMPTY;
+        }
+        for (long key : keys) {
+            if (key != EMPTY) {
+                sorted[count++] = key;
+            }
+        }
+        Arrays.sort(sorted);
+        for (long key : sorted) {
+            visitor.visit(x(key), y(key));
+        }
+    }
+
+    // Retourne {minX, minY, maxX, maxY}, ou null si l'ensemble est vide.
+    int[] getBounds() {
+        if (size == 0) {
+            return null;
+        }
+        int[] bounds = { Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE };
+        if (hasEmptyKey) {
+            bounds[0] = bounds[1] = Integer.MIN_VALUE;
+        }
+        for (long key : keys) {
+            if (key != EMPTY) {
+                bounds[0] = Math.min(bounds[0], x(key));
+                bounds[1] = Math.min(bounds[1], y(key));
+                bounds[2] = Math.max(bounds[2], x(key));
+                bounds[3] = Math.max(bounds[3], y(key));
+            }
+        }
+        return bounds;
+    }
+
+    // La ligne est dans les 32 bits de poids fort et la colonne, decalee pour etre
+    // positive, dans les 32 bits de poids faible: trier les cles trie les pixels par ligne.
+    private static long key(int x, int y) {
+        return ((long) y << 32) | ((x ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+
+    private static int x(long key) {
+        return (int) key ^ Integer.MIN_VALUE;
+    }
+
+    private static int y(long key) {
+        return (int) (key >> 32);
+    }
+
+    // Case de la cle, ou case vide ou l'inserer.
+    private int find(long key) {
+        int slot = home(key);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Les pixels voisins ont des cles voisines: elles sont dispersees par le nombre d'or.
+    private int home(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int slots) {
+        keys = new long[slots];
+        Arrays.fill(keys, EMPTY);
+        mask = slots - 1;
+    }
+
+    private void rehash(int slots) {
+        long[] oldKeys = keys;
+        allocate(slots);
+        for (long key : oldKeys) {
+            if (key != EMPTY) {
+                keys[find(key)] = key;
+            }
+        }
+    }
+
+    // Plus petite puissance de deux qui garde la table au plus a moitie pleine.
+    private static int slotsFor(int size) {
+        return Math.max(MIN_SLOTS, Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1);
+    }
+}
@@ -0,0 +1,13 @@
+package tp1;
+
+// Surface sur laquelle TileRenderer dessine, par segments horizontaux d'une couleur.
+// Les tuiles sont dessinees en parallele, mais deux tuiles n'ecrivent jamais le meme pixel.
+public interface PixelRaster {
+    int getWidth();
+
+    int getHeight();
+
+    // Colorie les pixels fromX a toX (inclusivement) de la ligne y, deja coupes aux bornes
+    // du raster. La couleur est en RGB (0xRRGGBB).
+    void fillRow(int y, int fromX, int toX, int color);
+}
@@ -0,0 +1,355 @@
+package tp1;
+
+// Ensemble de pixels (coordonnees entieres) garde comme une matrice de bits. Chaque ligne
+// est une suite de mots de 64 colonnes alignes sur les multiples de 64 en X: deux ensembles
+// ont donc les memes frontieres de mots, et l'union ou la difference se font mot par mot.
+// L'ensemble s'agrandit au besoin pour couvrir les pixels ajoutes. Si la matrice devait
+// compter plus de mots que de pixels, par exemple pour quelques pixels tres eloignes,
+// les pixels passent dans une table de hachage (voir PixelHashSet) et y restent tant
+// qu'ils sont disperses.
+public final class PixelSet {
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_MASK = 63;
+    // Une matrice d'au plus DENSE_WORDS mots est toujours acceptee.
+    private static final int DENSE_WORDS = 1 << 12;
+    private static final int MAX_WORDS = Integer.MAX_VALUE - 8;
+
+    // Premier mot en X (x >> WORD_SHIFT) et premiere ligne couverts.
+    private int firstWord;
+    private int firstRow;
+    private int wordsPerRow;
+    private int rows;
+    private long[] words;
+    // Pixels disperses (null tant que la matrice est utilisee).
+    private PixelHashSet sparse;
+    // Taille de la table a partir de laquelle on verifie si une matrice suffirait.
+    private int densifyAt;
+
+    public PixelSet() {
+        words = new long[0];
+    }
+
+    // Cree un ensemble vide deja dimensionne pour [minX, maxX] x [minY, maxY], que l'on
+    // s'attend a remplir.
+    public PixelSet(int minX, int minY, int maxX, int maxY) {
+        this(minX, minY, maxX, maxY, Long.MAX_VALUE);
+    }
+
+    // Meme chose, pour environ expectedPixels pixels: s'ils sont trop disperses dans la
+    // boite, l'ensemble commence directement avec une table de hachage.
+    PixelSet(int minX, int minY, int maxX, int maxY, long expectedPixels) {
+        this();
+        if (minX <= maxX && minY <= maxY) {
+            long area = ((long) (maxX >> WORD_SHIFT) - (minX >> WORD_SHIFT) + 1) * ((long) maxY - minY + 1);
+            if (fitsDense(area, expectedPixels)) {
+                resize(minX >> WORD_SHIFT, minY, maxX >> WORD_SHIFT, maxY);
+            } else {
+                useSparse((int) Math.min(expectedPixels, DENSE_WORDS));
+            }
+        }
+    }
+
+    // Pixels sur lesquels tombent les points du nuage (voir AbstractPoint.equals).
+    public static PixelSet of(PointCloud cloud) {
+        PixelSet set = covering(cloud);
+        for (int i = 0; i < cloud.size(); ++i) {
+            set.add((int) Math.round(cloud.x(i)), (int) Math.round(cloud.y(i)));
+        }
+        return set;
+    }
+
+    // Ensemble vide dimensionne pour les pixels du nuage.
+    static PixelSet covering(PointCloud cloud) {
+        if (cloud.isEmpty()) {
+            return new PixelSet();
+        }
+        long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE;
+        long maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE;
+        for (int i = 0; i < cloud.size(); ++i) {
+            long x = Math.round(cloud.x(i));
+            long y = Math.round(cloud.y(i));
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        return new PixelSet((int) minX, (int) minY, (int) maxX, (int) maxY, cloud.size());
+    }
+
+    // Ajoute le pixel et retourne vrai s'il n'y etait pas deja.
+    public boolean add(int x, int y) {
+        if (!ensureCovers(x >> WORD_SHIFT, y, x >> WORD_SHIFT, y, 1)) {
+            return addSparse(x, y);
+        }
+        int index = indexOf(x, y);
+        long bit = 1L << (x & WORD_MASK);
+        boolean added = (words[index] & bit) == 0;
+        words[index] |= bit;
+        return added;
+    }
+
+    // Ajoute les pixels fromX a toX (inclusivement) de la ligne y, mot par mot.
+    public void addRow(int y, int fromX, int toX) {
+        if (fromX > toX) {
+            return;
+        }
+        int fromWord = fromX >> WORD_SHIFT;
+        int toWord = toX >> WORD_SHIFT;
+        if (!ensureCovers(fromWord, y, toWord, y, (long) toX - fromX + 1)) {
+            for (long x = fromX; x <= toX; ++x) {
+                add((int) x, y);
+            }
+            return;
+        }
+        int offset = (y - firstRow) * wordsPerRow - firstWord;
+        for (int word = fromWord; word <= toWord; ++word) {
+            long mask = -1L;
+            if (word == fromWord) {
+                mask &= -1L << (fromX & WORD_MASK);
+            }
+            if (word == toWord) {
+                mask &= -1L >>> (WORD_MASK - (toX & WORD_MASK));
+            }
+            words[offset + word] |= mask;
+        }
+    }
+
+    // Retire le pixel et retourne vrai s'il y etait.
+    public boolean remove(int x, int y) {
+        if (sparse != null) {
+            return sparse.remove(x, y);
+        }
+        if (!covers(x, y)) {
+            return false;
+        }
+        int index = indexOf(x, y);
+        long bit = 1L << (x & WORD_MASK);
+        boolean removed = (words[index] & bit) != 0;
+        words[index] &= ~bit;
+        return removed;
+    }
+
+    public boolean contains(int x, int y) {
+        if (sparse != null) {
+            return sparse.contains(x, y);
+        }
+        return covers(x, y) && (words[indexOf(x, y)] & (1L << (x & WORD_MASK))) != 0;
+    }
+
+    // Ajoute tous les pixels de l'autre ensemble (union mot par mot).
+    public void or(PixelSet other) {
+        if (other.sparse != null) {
+            other.forEach(this::add);
+            return;
+        }
+        if (other.rows == 0) {
+            return;
+        }
+        if (!ensureCovers(other.firstWord, other.firstRow,
+                other.firstWord + other.wordsPerRow - 1, other.firstRow + other.rows - 1, other.size())) {
+            other.forEach(this::add);
+            return;
+        }
+        for (int row = 0; row < other.rows; ++row) {
+            int from = row * other.wordsPerRow;
+            int to = (other.firstRow + row - firstRow) * wordsPerRow + other.firstWord - firstWord;
+            for (int word = 0; word < other.wordsPerRow; ++word) {
+                words[to + word] |= other.words[from + word];
+            }
+        }
+    }
+
+    // Retire tous les pixels de l'autre ensemble (difference mot par mot).
+    public void andNot(PixelSet other) {
+        if (sparse != null) {
+            sparse.removeAll(other);
+            return;
+        }
+        if (other.sparse != null) {
+            other.forEach(this::remove);
+            return;
+        }
+        int fromRow = Math.max(firstRow, other.firstRow);
+        int toRow = Math.min(firstRow + rows, other.firstRow + other.rows);
+        int fromWord = Math.max(firstWord, other.firstWord);
+        int toWord = Math.min(firstWord + wordsPerRow, other.firstWord + other.wordsPerRow);
+        for (int row = fromRow; row < toRow; ++row) {
+            int to = (row - firstRow) * wordsPerRow - firstWord;
+            int from = (row - other.firstRow) * other.wordsPerRow - other.firstWord;
+            for (int word = fromWord; word < toWord; ++word) {
+                words[to + word] &= ~other.words[from + word];
+            }
+        }
+    }
+
+    // Indique si les deux ensembles ont au moins un pixel en commun.
+    public boolean intersects(PixelSet other) {
+        if (sparse != null) {
+            return sparse.intersects(other);
+        }
+        if (other.sparse != null) {
+            return other.sparse.intersects(this);
+        }
+        int fromRow = Math.max(firstRow, other.firstRow);
+        int toRow = Math.min(firstRow + rows, other.firstRow + other.rows);
+        int fromWord = Math.max(firstWord, other.firstWord);
+        int toWord = Math.min(firstWord + wordsPerRow, other.firstWord + other.wordsPerRow);
+        for (int row = fromRow; row < toRow; ++row) {
+            int at = (row - firstRow) * wordsPerRow - firstWord;
+            int from = (row - other.firstRow) * other.wordsPerRow - other.firstWord;
+            for (int word = fromWord; word < toWord; ++word) {
+                if ((words[at + word] & other.words[from + word]) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        if (sparse != null) {
+            return sparse.size();
+        }
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        if (sparse != null) {
+            return sparse.size() == 0;
+        }
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Parcourt les pixels ligne par ligne, de gauche a droite.
+    public void forEach(PixelVisitor visitor) {
+        if (sparse != null) {
+            sparse.forEach(visitor);
+            return;
+        }
+        for (int row = 0; row < rows; ++row) {
+            for (int word = 0; word < wordsPerRow; ++word) {
+                long bits = words[row * wordsPerRow + word];
+                int x0 = (firstWord + word) << WORD_SHIFT;
+                while (bits != 0) {
+                    visitor.visit(x0 + Long.numberOfTrailingZeros(bits), firstRow + row);
+                    bits &= bits - 1;
+                }
+            }
+        }
+    }
+
+    private boolean covers(int x, int y) {
+        int word = x >> WORD_SHIFT;
+        return y >= firstRow && y < firstRow + rows && word >= firstWord && word < firstWord + wordsPerRow;
+    }
+
+    private int indexOf(int x, int y) {
+        return (y - firstRow) * wordsPerRow + (x >> WORD_SHIFT) - firstWord;
+    }
+
+    // Agrandit la matrice pour couvrir les mots [minWord, maxWord] des lignes [minRow, maxRow].
+    // Chaque agrandissement double au moins la dimension qui grandit. Si la matrice devenait
+    // trop grande pour les pixels qu'elle contiendrait (added de plus), les pixels passent
+    // dans une table de hachage; retourne faux si l'ensemble n'utilise pas (ou plus) la matrice.
+    private boolean ensureCovers(int minWord, int minRow, int maxWord, int maxRow, long added) {
+        if (sparse != null) {
+            return false;
+        }
+        long newMinWord = minWord, newMinRow = minRow, newMaxWord = maxWord, newMaxRow = maxRow;
+        if (rows != 0) {
+            int lastWord = firstWord + wordsPerRow - 1;
+            int lastRow = firstRow + rows - 1;
+            if (minWord >= firstWord && maxWord <= lastWord && minRow >= firstRow && maxRow <= lastRow) {
+                return true;
+            }
+            newMinWord = minWord < firstWord ? Math.min(minWord, (long) firstWord - wordsPerRow) : firstWord;
+            newMinRow = minRow < firstRow ? Math.max(Math.min(minRow, (long) firstRow - rows), Integer.MIN_VALUE) : firstRow;
+            newMaxWord = maxWord > lastWord ? Math.max(maxWord, (long) lastWord + wordsPerRow) : lastWord;
+            newMaxRow = maxRow > lastRow ? Math.min(Math.max(maxRow, (long) lastRow + rows), Integer.MAX_VALUE) : lastRow;
+        }
+        long area = (newMaxWord - newMinWord + 1) * (newMaxRow - newMinRow + 1);
+        if (!fitsDense(area, size() + added)) {
+            // Sans doubler, la matrice suffit peut-etre encore.
+            if (rows == 0 || !fitsDense(coveredArea(minWord, minRow, maxWord, maxRow), size() + added)) {
+                useSparse(size());
+                return false;
+            }
+            newMinWord = Math.min(minWord, firstWord);
+            newMinRow = Math.min(minRow, firstRow);
+            newMaxWord = Math.max(maxWord, firstWord + wordsPerRow - 1);
+            newMaxRow = Math.max(maxRow, firstRow + rows - 1);
+        }
+        resize((int) newMinWord, (int) newMinRow, (int) newMaxWord, (int) newMaxRow);
+        return true;
+    }
+
+    // Nombre de mots d'une matrice qui couvrirait la matrice actuelle et les mots demandes.
+    private long coveredArea(int minWord, int minRow, int maxWord, int maxRow) {
+        long words = (long) Math.max(maxWord, firstWord + wordsPerRow - 1) - Math.min(minWord, firstWord) + 1;
+        long rowCount = (long) Math.max(maxRow, firstRow + rows - 1) - Math.min(minRow, firstRow) + 1;
+        return words * rowCount;
+    }
+
+    // Une matrice est gardee si elle reste petite, ou si elle compte au plus un mot par pixel.
+    private static boolean fitsDense(long words, long pixels) {
+        return words <= MAX_WORDS && words <= Math.max(DENSE_WORDS, pixels);
+    }
+
+    private void resize(int minWord, int minRow, int maxWord, int maxRow) {
+        int newWordsPerRow = maxWord - minWord + 1;
+        int newRows = maxRow - minRow + 1;
+        long[] newWords = new long[Math.multiplyExact(newWordsPerRow, newRows)];
+        for (int row = 0; row < rows; ++row) {
+            System.arraycopy(words, row * wordsPerRow, newWords,
+                    (firstRow + row - minRow) * newWordsPerRow + firstWord - minWord, wordsPerRow);
+        }
+        firstWord = minWord;
+        firstRow = minRow;
+        wordsPerRow = newWordsPerRow;
+        rows = newRows;
+        words = newWords;
+    }
+
+    // Passe les pixels de la matrice dans une table de hachage.
+    private void useSparse(int expectedPixels) {
+        PixelHashSet set = new PixelHashSet(expectedPixels);
+        forEach(set::add);
+        words = new long[0];
+        rows = 0;
+        wordsPerRow = 0;
+        sparse = set;
+        densifyAt = Math.max(2 * set.size(), DENSE_WORDS);
+    }
+
+    private boolean addSparse(int x, int y) {
+        boolean added = sparse.add(x, y);
+        if (added && sparse.size() >= densifyAt) {
+            // Assez de pixels pour que la matrice de leur boite redevienne raisonnable?
+            int[] bounds = sparse.getBounds();
+            long area = ((long) (bounds[2] >> WORD_SHIFT) - (bounds[0] >> WORD_SHIFT) + 1)
+                    * ((long) bounds[3] - bounds[1] + 1);
+            if (fitsDense(area, sparse.size())) {
+                PixelHashSet set = sparse;
+                sparse = null;
+                resize(bounds[0] >> WORD_SHIFT, bounds[1], bounds[2] >> WORD_SHIFT, bounds[3]);
+                set.forEach(this::add);
+            } else {
+                densifyAt = (int) Math.min(2L * densifyAt, Integer.MAX_VALUE);
+            }
+        }
+        return added;
+    }
+
+    public interface PixelVisitor {
+        void visit(int x, int y);
+    }
+}
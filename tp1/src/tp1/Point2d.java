@@ -1,71 +1,111 @@
 package tp1;
 
 public class Point2d extends AbstractPoint {
-    private final Integer X = 0;
-    private final Integer Y = 1;
+    private final double x;
+    private final double y;
 
     // Cree un point en 2d avec 2 donnees
-    public Point2d(Double x, Double y) {
-        super(new Double[]{x,y});
+    public Point2d(double x, double y) {
+        this.x = x;
+        this.y = y;
     }
 
     // Cree un point a partir d'un vecteur de donnees
     public Point2d(Double[] vector) {
-        super(new Double[]{vector[0],vector[1]});
+        this(vector[0], vector[1]);
     }
 
-    public Double X() { return vector[X];}
-    public Double Y() { return vector[Y];}
+    public double X() { return x;}
+    public double Y() { return y;}
+
+    @Override
+    public int dimension() { return 2; }
+
+    @Override
+    public double get(int index) {
+        return index == 0 ? x : y;
+    }
+
+    // Meme egalite que AbstractPoint, sans passer par get(index).
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Point2d)) {
+            return super.equals(o);
+        }
+        Point2d other = (Point2d) o;
+        return Math.round(x) == Math.round(other.x) && Math.round(y) == Math.round(other.y);
+    }
+
+    // Meme valeur que AbstractPoint.hashCode pour deux coordonnees.
+    @Override
+    public int hashCode() {
+        return 31 * (31 + Long.hashCode(Math.round(x))) + Long.hashCode(Math.round(y));
+    }
 
     // Prend un vecteur de donnees et applique la translation.
     @Override
     public Point2d translate(Double[] translateVector) {
-        return new Point2d(PointOperator.translate(vector.clone(),translateVector));
+        if (translateVector.length != 2) {
+            return clone();
+        }
+        return translate(translateVector[0], translateVector[1]);
     }
 
     // Prendre un point et appliquer la translation.
     public Point2d translate(Point2d translateVector) {
-        return translate(translateVector.vector.clone());
+        return translate(translateVector.x, translateVector.y);
+    }
+
+    // Applique la translation sans passer par un vecteur intermediaire.
+    public Point2d translate(double dx, double dy) {
+        return new Point2d(x + dx, y + dy);
     }
 
     // Prend un vecteur de donnees et appliquer la rotation.
     @Override
     public Point2d rotate(Double[][] rotationMatrix) {
-        return new Point2d(PointOperator.rotate(vector.clone(),rotationMatrix));
+        if (rotationMatrix.length != 2) {
+            return clone();
+        }
+        return new Point2d(
+                rotationMatrix[0][0] * x + rotationMatrix[0][1] * y,
+                rotationMatrix[1][0] * x + rotationMatrix[1][1] * y);
     }
 
     // TODO prendre un angle de rotation, creer une matrice et appliquer la rotation. FAIT?
     public Point2d rotate(Double angle) {
-        Double[][] rotationMatrix = new Double[2][2];
-        rotationMatrix[0][0] = Math.cos(angle);
-        rotationMatrix[0][1] = -Math.sin(angle);
-        rotationMatrix[1][0] = Math.sin(angle);
-        rotationMatrix[1][1] = Math.cos(angle);
-        return rotate(rotationMatrix);
+        return rotate(Math.cos(angle), Math.sin(angle));
+    }
+
+    // Applique la rotation a partir du cosinus et du sinus deja calcules.
+    public Point2d rotate(double cos, double sin) {
+        return new Point2d(cos * x - sin * y, sin * x + cos * y);
     }
 
     // Prendre un facteur de division et l'appliquer
     @Override
     public Point2d divide(Double divider) {
-        return new Point2d(PointOperator.divide(vector.clone(),divider));
+        if (divider == 0) {
+            return clone();
+        }
+        return new Point2d(x / divider, y / divider);
     }
 
     // Prend un facteur de multiplication et l'applique
     @Override
     public Point2d multiply(Double multiplier) {
-        Point2d point = new Point2d(this.vector);
-        return new Point2d(PointOperator.multiply(vector.clone(),multiplier));
+        return new Point2d(x * multiplier, y * multiplier);
     }
 
     // Prendre un facteur d'addition et l'applique
     @Override
     public Point2d add(Double adder) {
-        return new Point2d(PointOperator.add(vector.clone(),adder));
+        return new Point2d(x + adder, y + adder);
     }
 
     // Creer un nouveau point
     @Override
     public Point2d clone() {
-        return new Point2d(vector.clone());
+        return new Point2d(x, y);
     }
 }
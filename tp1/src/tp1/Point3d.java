@@ -0,0 +1,124 @@
+package tp1;
+
+public class Point3d extends AbstractPoint {
+    private final double x;
+    private final double y;
+    private final double z;
+
+    // Cree un point en 3d avec 3 donnees
+    public Point3d(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    // Cree un point a partir d'un vecteur de donnees
+    public Point3d(Double[] vector) {
+        this(vector[0], vector[1], vector[2]);
+    }
+
+    // Cree un point 3d a partir d'un point 2d, a la profondeur z.
+    public Point3d(Point2d point, double z) {
+        this(point.X(), point.Y(), z);
+    }
+
+    public double X() { return x; }
+    public double Y() { return y; }
+    public double Z() { return z; }
+
+    @Override
+    public int dimension() { return 3; }
+
+    @Override
+    public double get(int index) {
+        return index == 0 ? x : index == 1 ? y : z;
+    }
+
+    // Meme egalite que AbstractPoint, sans passer par get(index).
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Point3d)) {
+            return super.equals(o);
+        }
+        Point3d other = (Point3d) o;
+        return Math.round(x) == Math.round(other.x) && Math.round(y) == Math.round(other.y)
+                && Math.round(z) == Math.round(other.z);
+    }
+
+    // Meme valeur que AbstractPoint.hashCode pour trois coordonnees.
+    @Override
+    public int hashCode() {
+        int hash = 31 * (31 + Long.hashCode(Math.round(x))) + Long.hashCode(Math.round(y));
+        return 31 * hash + Long.hashCode(Math.round(z));
+    }
+
+    // Prend un vecteur de donnees et applique la translation.
+    @Override
+    public Point3d translate(Double[] translateVector) {
+        if (translateVector.length != 3) {
+            return clone();
+        }
+        return translate(translateVector[0], translateVector[1], translateVector[2]);
+    }
+
+    // Prendre un point et appliquer la translation.
+    public Point3d translate(Point3d translateVector) {
+        return translate(translateVector.x, translateVector.y, translateVector.z);
+    }
+
+    // Applique la translation sans passer par un vecteur intermediaire.
+    public Point3d translate(double dx, double dy, double dz) {
+        return new Point3d(x + dx, y + dy, z + dz);
+    }
+
+    // Prend une matrice 3x3 et applique la rotation.
+    @Override
+    public Point3d rotate(Double[][] rotationMatrix) {
+        if (rotationMatrix.length != 3) {
+            return clone();
+        }
+        return new Point3d(
+                rotationMatrix[0][0] * x + rotationMatrix[0][1] * y + rotationMatrix[0][2] * z,
+                rotationMatrix[1][0] * x + rotationMatrix[1][1] * y + rotationMatrix[1][2] * z,
+                rotationMatrix[2][0] * x + rotationMatrix[2][1] * y + rotationMatrix[2][2] * z);
+    }
+
+    // Applique une rotation autour de l'axe Z, comme Point2d.rotate, en gardant la profondeur.
+    public Point3d rotateZ(Double angle) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        return new Point3d(cos * x - sin * y, sin * x + cos * y, z);
+    }
+
+    // Prendre un facteur de division et l'appliquer
+    @Override
+    public Point3d divide(Double divider) {
+        if (divider == 0) {
+            return clone();
+        }
+        return new Point3d(x / divider, y / divider, z / divider);
+    }
+
+    // Prend un facteur de multiplication et l'applique
+    @Override
+    public Point3d multiply(Double multiplier) {
+        return new Point3d(x * multiplier, y * multiplier, z * multiplier);
+    }
+
+    // Prendre un facteur d'addition et l'applique
+    @Override
+    public Point3d add(Double adder) {
+        return new Point3d(x + adder, y + adder, z + adder);
+    }
+
+    // Retourne le point 2d obtenu en oubliant la profondeur.
+    public Point2d toPoint2d() {
+        return new Point2d(x, y);
+    }
+
+    // Creer un nouveau point
+    @Override
+    public Point3d clone() {
+        return new Point3d(x, y, z);
+    }
+}
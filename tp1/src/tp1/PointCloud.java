@@ -0,0 +1,185 @@
+package tp1;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+// Nuage de points garde en colonnes: les X et les Y sont dans deux tableaux
+// primitifs pour que les transformations soient de simples boucles.
+public class PointCloud {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private double[] xs;
+    private double[] ys;
+    private int size;
+
+    public PointCloud() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PointCloud(int capacity) {
+        xs = new double[Math.max(capacity, 1)];
+        ys = new double[Math.max(capacity, 1)];
+        size = 0;
+    }
+
+    // Copie les colonnes d'un autre nuage.
+    public PointCloud(PointCloud other) {
+        xs = Arrays.copyOf(other.xs, Math.max(other.size, 1));
+        ys = Arrays.copyOf(other.ys, Math.max(other.size, 1));
+        size = other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double x(int index) {
+        return xs[index];
+    }
+
+    public double y(int index) {
+        return ys[index];
+    }
+
+    public Point2d get(int index) {
+        return new Point2d(xs[index], ys[index]);
+    }
+
+    // Ajoute un point a la fin des colonnes, sans verifier les doublons.
+    public void add(double x, double y) {
+        ensureCapacity(size + 1);
+        xs[size] = x;
+        ys[size] = y;
+        ++size;
+    }
+
+    public void addAll(PointCloud other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.xs, 0, xs, size, other.size);
+        System.arraycopy(other.ys, 0, ys, size, other.size);
+        size += other.size;
+    }
+
+    // Applique la translation sur toutes les colonnes.
+    public void translate(double dx, double dy) {
+        PointOperator.translate(xs, ys, size, dx, dy);
+    }
+
+    // Applique la rotation sur toutes les colonnes.
+    public void rotate(double angle) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        PointOperator.transform(xs, ys, size, cos, -sin, 0.0, sin, cos, 0.0);
+    }
+
+    // Applique une transformation affine (deux premieres lignes de la matrice).
+    public void transform(double m00, double m01, double m02,
+                          double m10, double m11, double m12) {
+        PointOperator.transform(xs, ys, size, m00, m01, m02, m10, m11, m12);
+    }
+
+    // Applique le facteur de multiplication sur toutes les colonnes.
+    public void scale(double factor) {
+        PointOperator.multiply(xs, size, factor);
+        PointOperator.multiply(ys, size, factor);
+    }
+
+    // Retire tous les points qui arrondissent au meme pixel que (x, y).
+    public void remove(double x, double y) {
+        long key = key(x, y);
+        int kept = 0;
+        for (int i = 0; i < size; ++i) {
+            if (key(xs[i], ys[i]) != key) {
+                xs[kept] = xs[i];
+                ys[kept] = ys[i];
+                ++kept;
+            }
+        }
+        size = kept;
+    }
+
+    // Retire tous les points qui arrondissent a un pixel de l'autre nuage.
+    public void removeAll(PointCloud other) {
+        removeAll(PixelSet.of(other));
+    }
+
+    // Retire tous les points qui arrondissent a un pixel de l'ensemble.
+    public void removeAll(PixelSet removed) {
+        int kept = 0;
+        for (int i = 0; i < size; ++i) {
+            if (!removed.contains((int) Math.round(xs[i]), (int) Math.round(ys[i]))) {
+                xs[kept] = xs[i];
+                ys[kept] = ys[i];
+                ++kept;
+            }
+        }
+        size = kept;
+    }
+
+    // Retire les doublons (meme pixel arrondi) en gardant le premier point vu.
+    public void removeDuplicates() {
+        PixelSet seen = PixelSet.covering(this);
+        int kept = 0;
+        for (int i = 0; i < size; ++i) {
+            if (seen.add((int) Math.round(xs[i]), (int) Math.round(ys[i]))) {
+                xs[kept] = xs[i];
+                ys[kept] = ys[i];
+                ++kept;
+            }
+        }
+        size = kept;
+    }
+
+    // Parcourt les points sans creer d'objets.
+    public void forEach(PointVisitor visitor) {
+        for (int i = 0; i < size; ++i) {
+            visitor.visit(xs[i], ys[i]);
+        }
+    }
+
+    // Passe chaque point au visiteur dans un meme curseur, sans creer d'objets.
+    public void forEach(PointCursor cursor, PointCursor.Visitor visitor) {
+        for (int i = 0; i < size; ++i) {
+            visitor.visit(cursor.set(xs[i], ys[i]));
+        }
+    }
+
+    // Comme forEach, mais garde dans le nuage la valeur du curseur apres chaque visite.
+    public void update(PointCursor cursor, PointCursor.Visitor visitor) {
+        for (int i = 0; i < size; ++i) {
+            visitor.visit(cursor.set(xs[i], ys[i]));
+            xs[i] = cursor.X();
+            ys[i] = cursor.Y();
+        }
+    }
+
+    public Set<Point2d> toSet() {
+        Set<Point2d> set = new HashSet<>();
+        for (int i = 0; i < size; ++i) {
+            set.add(new Point2d(xs[i], ys[i]));
+        }
+        return set;
+    }
+
+    // Deux points sont egaux s'ils arrondissent au meme pixel (voir AbstractPoint.equals).
+    static long key(double x, double y) {
+        return (Math.round(x) << 32) | (Math.round(y) & 0xFFFFFFFFL);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > xs.length) {
+            int newCapacity = Math.max(capacity, xs.length * 2);
+            xs = Arrays.copyOf(xs, newCapacity);
+            ys = Arrays.copyOf(ys, newCapacity);
+        }
+    }
+
+    public interface PointVisitor {
+        void visit(double x, double y);
+    }
+}
@@ -0,0 +1,97 @@
+package tp1;
+
+// Point mutable a reutiliser dans les boucles chaudes: les operations modifient le
+// curseur sur place et retournent le curseur lui-meme, sans creer de point.
+// freeze() retourne un Point2d immuable quand il faut garder la valeur.
+public final class PointCursor {
+    private double x;
+    private double y;
+
+    public PointCursor() {
+        this(0.0, 0.0);
+    }
+
+    public PointCursor(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    public PointCursor(Point2d point) {
+        this(point.X(), point.Y());
+    }
+
+    public double X() { return x; }
+    public double Y() { return y; }
+
+    public PointCursor set(double x, double y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
+    public PointCursor set(Point2d point) {
+        return set(point.X(), point.Y());
+    }
+
+    // Applique la translation sur place.
+    public PointCursor translate(double dx, double dy) {
+        x += dx;
+        y += dy;
+        return this;
+    }
+
+    public PointCursor translate(Point2d translateVector) {
+        return translate(translateVector.X(), translateVector.Y());
+    }
+
+    // Applique la rotation sur place.
+    public PointCursor rotate(Double angle) {
+        return rotate(Math.cos(angle), Math.sin(angle));
+    }
+
+    // Applique la rotation a partir du cosinus et du sinus deja calcules.
+    public PointCursor rotate(double cos, double sin) {
+        return set(cos * x - sin * y, sin * x + cos * y);
+    }
+
+    // Applique la transformation affine sur place.
+    public PointCursor transform(AffineTransform transform) {
+        transform.apply(this);
+        return this;
+    }
+
+    // Applique le facteur de division; une division par 0 ne change rien, comme Point2d.
+    public PointCursor divide(double divider) {
+        if (divider != 0) {
+            x /= divider;
+            y /= divider;
+        }
+        return this;
+    }
+
+    public PointCursor multiply(double multiplier) {
+        x *= multiplier;
+        y *= multiplier;
+        return this;
+    }
+
+    public PointCursor add(double adder) {
+        x += adder;
+        y += adder;
+        return this;
+    }
+
+    // Retourne un point immuable avec la valeur courante du curseur.
+    public Point2d freeze() {
+        return new Point2d(x, y);
+    }
+
+    @Override
+    public String toString() {
+        return freeze().toString();
+    }
+
+    public interface Visitor {
+        void visit(PointCursor cursor);
+    }
+}
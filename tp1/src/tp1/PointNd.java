@@ -0,0 +1,106 @@
+package tp1;
+
+import java.util.Arrays;
+
+// Point de dimension quelconque. Pour 2 et 3 dimensions, Point2d et Point3d evitent
+// les boucles et le tableau; les trois classes sont egales pour les memes coordonnees.
+public class PointNd extends AbstractPoint {
+    private final double[] coordinates;
+
+    // Cree un point avec les donnees fournies (copiees).
+    public PointNd(double... coordinates) {
+        this.coordinates = coordinates.clone();
+    }
+
+    // Cree un point a partir d'un vecteur de donnees
+    public PointNd(Double[] vector) {
+        coordinates = new double[vector.length];
+        for (int i = 0; i < vector.length; ++i) {
+            coordinates[i] = vector[i];
+        }
+    }
+
+    // Cree un point a partir des coordonnees d'un autre point.
+    public PointNd(AbstractPoint point) {
+        coordinates = new double[point.dimension()];
+        for (int i = 0; i < coordinates.length; ++i) {
+            coordinates[i] = point.get(i);
+        }
+    }
+
+    @Override
+    public int dimension() { return coordinates.length; }
+
+    @Override
+    public double get(int index) {
+        return coordinates[index];
+    }
+
+    // Prend un vecteur de donnees et applique la translation.
+    @Override
+    public PointNd translate(Double[] translateVector) {
+        if (translateVector.length != coordinates.length) {
+            return clone();
+        }
+        double[] translated = coordinates.clone();
+        for (int i = 0; i < translated.length; ++i) {
+            translated[i] += translateVector[i];
+        }
+        return new PointNd(translated);
+    }
+
+    // Prend une matrice carree et applique la rotation.
+    @Override
+    public PointNd rotate(Double[][] rotationMatrix) {
+        if (rotationMatrix.length != coordinates.length) {
+            return clone();
+        }
+        double[] rotated = new double[coordinates.length];
+        for (int i = 0; i < rotated.length; ++i) {
+            double coordinate = 0;
+            for (int j = 0; j < coordinates.length; ++j) {
+                coordinate += rotationMatrix[i][j] * coordinates[j];
+            }
+            rotated[i] = coordinate;
+        }
+        return new PointNd(rotated);
+    }
+
+    // Prendre un facteur de division et l'appliquer
+    @Override
+    public PointNd divide(Double divider) {
+        if (divider == 0) {
+            return clone();
+        }
+        double[] divided = coordinates.clone();
+        PointOperator.divide(divided, divided.length, divider);
+        return new PointNd(divided);
+    }
+
+    // Prend un facteur de multiplication et l'applique
+    @Override
+    public PointNd multiply(Double multiplier) {
+        double[] multiplied = coordinates.clone();
+        PointOperator.multiply(multiplied, multiplied.length, multiplier);
+        return new PointNd(multiplied);
+    }
+
+    // Prendre un facteur d'addition et l'applique
+    @Override
+    public PointNd add(Double adder) {
+        double[] added = coordinates.clone();
+        PointOperator.add(added, added.length, adder);
+        return new PointNd(added);
+    }
+
+    // Retourne une copie des coordonnees.
+    public double[] toArray() {
+        return Arrays.copyOf(coordinates, coordinates.length);
+    }
+
+    // Creer un nouveau point
+    @Override
+    public PointNd clone() {
+        return new PointNd(coordinates);
+    }
+}
@@ -65,11 +65,163 @@ public final class PointOperator {
         return vector;
     }
 
+    // Les operations suivantes traitent tous les points d'une forme en un appel. Les
+    // coordonnees sont soit separees (xs et ys), soit entrelacees (x0, y0, x1, y1, ...).
+    // Les boucles sont simples et sans appel pour que le JIT puisse les vectoriser.
+
+    // Applique la translation sur les count premiers points des colonnes xs et ys.
+    public static void translate(double[] xs, double[] ys, int count, double dx, double dy) {
+        add(xs, count, dx);
+        add(ys, count, dy);
+    }
+
+    // Applique la translation sur les count premiers points entrelaces.
+    public static void translate(double[] xy, int count, double dx, double dy) {
+        for (int i = 0; i < 2 * count; i += 2) {
+            xy[i] += dx;
+            xy[i + 1] += dy;
+        }
+    }
+
+    // Applique la matrice de rotation 2x2 sur les colonnes xs et ys.
+    public static void rotate(double[] xs, double[] ys, int count, double[][] rotationMatrix) {
+        transform(xs, ys, count, rotationMatrix[0][0], rotationMatrix[0][1], 0.0,
+                rotationMatrix[1][0], rotationMatrix[1][1], 0.0);
+    }
+
+    // Applique la matrice de rotation 2x2 sur les points entrelaces.
+    public static void rotate(double[] xy, int count, double[][] rotationMatrix) {
+        transform(xy, count, rotationMatrix[0][0], rotationMatrix[0][1], 0.0,
+                rotationMatrix[1][0], rotationMatrix[1][1], 0.0);
+    }
+
+    // Applique une transformation affine (deux premieres lignes de la matrice) sur les colonnes xs et ys.
+    public static void transform(double[] xs, double[] ys, int count,
+                                 double m00, double m01, double m02,
+                                 double m10, double m11, double m12) {
+        for (int i = 0; i < count; ++i) {
+            double x = xs[i];
+            double y = ys[i];
+            xs[i] = m00 * x + m01 * y + m02;
+            ys[i] = m10 * x + m11 * y + m12;
+        }
+    }
+
+    // Applique une transformation affine (deux premieres lignes de la matrice) sur les points entrelaces.
+    public static void transform(double[] xy, int count,
+                                 double m00, double m01, double m02,
+                                 double m10, double m11, double m12) {
+        for (int i = 0; i < 2 * count; i += 2) {
+            double x = xy[i];
+            double y = xy[i + 1];
+            xy[i] = m00 * x + m01 * y + m02;
+            xy[i + 1] = m10 * x + m11 * y + m12;
+        }
+    }
+
+    // Applique la translation sur les count premiers points 3d des colonnes xs, ys et zs.
+    public static void translate(double[] xs, double[] ys, double[] zs, int count,
+                                 double dx, double dy, double dz) {
+        add(xs, count, dx);
+        add(ys, count, dy);
+        add(zs, count, dz);
+    }
+
+    // Applique une matrice 3x3 (ou les trois premieres lignes d'une matrice affine 4x4)
+    // sur les count premiers points 3d des colonnes xs, ys et zs.
+    public static void transform(double[] xs, double[] ys, double[] zs, int count, double[][] matrix) {
+        double m00 = matrix[0][0], m01 = matrix[0][1], m02 = matrix[0][2], m03 = translationOf(matrix, 0, 3);
+        double m10 = matrix[1][0], m11 = matrix[1][1], m12 = matrix[1][2], m13 = translationOf(matrix, 1, 3);
+        double m20 = matrix[2][0], m21 = matrix[2][1], m22 = matrix[2][2], m23 = translationOf(matrix, 2, 3);
+        for (int i = 0; i < count; ++i) {
+            double x = xs[i];
+            double y = ys[i];
+            double z = zs[i];
+            xs[i] = m00 * x + m01 * y + m02 * z + m03;
+            ys[i] = m10 * x + m11 * y + m12 * z + m13;
+            zs[i] = m20 * x + m21 * y + m22 * z + m23;
+        }
+    }
+
+    // Applique une matrice dimension x dimension (ou une matrice affine, avec la translation
+    // dans une colonne de plus) sur count points entrelaces de la dimension donnee.
+    // Les dimensions 2 et 3 passent par des boucles deroulees, sans boucle interne.
+    public static void transform(double[] coords, int dimension, int count, double[][] matrix) {
+        switch (dimension) {
+            case 2:
+                transform(coords, count, matrix[0][0], matrix[0][1], translationOf(matrix, 0, 2),
+                        matrix[1][0], matrix[1][1], translationOf(matrix, 1, 2));
+                return;
+            case 3:
+                transform3d(coords, count, matrix);
+                return;
+            default:
+                transformNd(coords, dimension, count, matrix);
+        }
+    }
+
+    private static void transform3d(double[] xyz, int count, double[][] matrix) {
+        double m00 = matrix[0][0], m01 = matrix[0][1], m02 = matrix[0][2], m03 = translationOf(matrix, 0, 3);
+        double m10 = matrix[1][0], m11 = matrix[1][1], m12 = matrix[1][2], m13 = translationOf(matrix, 1, 3);
+        double m20 = matrix[2][0], m21 = matrix[2][1], m22 = matrix[2][2], m23 = translationOf(matrix, 2, 3);
+        for (int i = 0; i < 3 * count; i += 3) {
+            double x = xyz[i];
+            double y = xyz[i + 1];
+            double z = xyz[i + 2];
+            xyz[i] = m00 * x + m01 * y + m02 * z + m03;
+            xyz[i + 1] = m10 * x + m11 * y + m12 * z + m13;
+            xyz[i + 2] = m20 * x + m21 * y + m22 * z + m23;
+        }
+    }
+
+    private static void transformNd(double[] coords, int dimension, int count, double[][] matrix) {
+        double[] point = new double[dimension];
+        for (int p = 0; p < dimension * count; p += dimension) {
+            System.arraycopy(coords, p, point, 0, dimension);
+            for (int i = 0; i < dimension; ++i) {
+                double coordinate = translationOf(matrix, i, dimension);
+                for (int j = 0; j < dimension; ++j) {
+                    coordinate += matrix[i][j] * point[j];
+                }
+                coords[p + i] = coordinate;
+            }
+        }
+    }
+
+    // Retourne la translation de la ligne si la matrice est affine, 0 sinon.
+    private static double translationOf(double[][] matrix, int row, int column) {
+        return matrix[row].length > column ? matrix[row][column] : 0.0;
+    }
+
+    // Applique le facteur de multiplication sur les count premieres valeurs.
+    // Pour des points entrelaces, count est le double du nombre de points.
+    public static void multiply(double[] values, int count, double multiplier) {
+        for (int i = 0; i < count; ++i) {
+            values[i] *= multiplier;
+        }
+    }
+
+    // Applique le facteur de division sur les count premieres valeurs; une division par 0 ne change rien.
+    public static void divide(double[] values, int count, double divider) {
+        if (divider != 0) {
+            for (int i = 0; i < count; ++i) {
+                values[i] /= divider;
+            }
+        }
+    }
+
+    // Applique le facteur d'addition sur les count premieres valeurs.
+    public static void add(double[] values, int count, double adder) {
+        for (int i = 0; i < count; ++i) {
+            values[i] += adder;
+        }
+    }
+
     // Retourne la coordonnee avec les plus grandes valeurs en X et en Y.
     public static Point2d getMaxCoord(Collection<Point2d> coords) {
 
-        Double maxX;
-        Double maxY;
+        double maxX;
+        double maxY;
 
         Iterator<Point2d> it = coords.iterator();
 
@@ -93,8 +245,8 @@ public final class PointOperator {
     // Retourne la coordonnee avec les plus petites valeurs en X et en Y.
     public static Point2d getMinCoord(Collection<Point2d> coords) {
 
-        Double minX;
-        Double minY;
+        double minX;
+        double minY;
 
         Iterator<Point2d> it = coords.iterator();
 
@@ -114,4 +266,14 @@ public final class PointOperator {
         }
         return new Point2d(minX,minY);
     }
+
+    // Retourne la coordonnee avec les plus grandes valeurs en X et en Y, a partir de la boite englobante de la forme.
+    public static Point2d getMaxCoord(BaseShape shape) {
+        return shape.getMaxCoord();
+    }
+
+    // Retourne la coordonnee avec les plus petites valeurs en X et en Y, a partir de la boite englobante de la forme.
+    public static Point2d getMinCoord(BaseShape shape) {
+        return shape.getMinCoord();
+    }
 }
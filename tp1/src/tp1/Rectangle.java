@@ -1,7 +1,6 @@
 package tp1;
 
 import java.lang.reflect.Array;
-import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -9,42 +8,141 @@ public class Rectangle extends BaseShape {
     // Cree un rectangle avec une largeur et une longueur.
     public Rectangle(Double width, Double height) {
         super();
-        for (double i =  - width / 2; i < width / 2; i++) {
-            for (double j =  - height / 2; j < height / 2; j++) {
-                add(new Point2d(i,j));
-            }
-        }
+        addGeometry(new Geometry(width, height, 0.0));
     }
 
     // Creer un rectangle avec un point contenant la largeur et longueur.
     public Rectangle(Point2d dimensions) {
-        super();
-        for (double i = - dimensions.X() / 2; i < dimensions.X() / 2; i++){
-            for (double j = - dimensions.Y() / 2; j < dimensions.Y() / 2; j++){
-                add(new Point2d(i,j));
-            }
-        }
+        this(dimensions.X(), dimensions.Y());
     }
 
-    private Rectangle(Set<Point2d> coords) {
-        super(coords);
+    private Rectangle(Rectangle source, AffineTransform next) {
+        super(source, next);
     }
 
     // Appliquer la translation sur la forme
     @Override
     public Rectangle translate(Point2d point) {
-        return new Rectangle(super.translate(point).getCoords());
+        return transform(AffineTransform.translation(point.X(), point.Y()));
     }
 
     // Appliquer la rotation sur la forme
     @Override
     public Rectangle rotate(Double angle) {
-        return new Rectangle(super.rotate(angle).getCoords());
+        return transform(AffineTransform.rotation(angle));
+    }
+
+    // Applique la transformation sur la forme, sans calculer les points.
+    @Override
+    public Rectangle transform(AffineTransform next) {
+        return new Rectangle(this, next);
     }
 
     // Retourne une nouvelle forme.
     @Override
     public Rectangle clone() {
-        return new Rectangle(this.getCoords());
+        return new Rectangle(this, AffineTransform.IDENTITY);
+    }
+
+    // Geometrie d'un rectangle centre sur l'origine. Les points echantillonnes sont
+    // sur une grille de pas 1 qui commence au coin (-width / 2, -height / 2).
+    private static final class Geometry implements ShapeGeometry {
+        private final double width;
+        private final double height;
+        private final double margin;
+
+        Geometry(double width, double height, double margin) {
+            this.width = width;
+            this.height = height;
+            this.margin = margin;
+        }
+
+        // Une tranche par colonne de la grille.
+        @Override
+        public int sliceCount() {
+            return countSteps(width);
+        }
+
+        @Override
+        public int pointsPerSlice() {
+            return countSteps(height);
+        }
+
+        // La premiere colonne de la tranche est calculee directement, sans rejouer les colonnes
+        // precedentes. Pour une largeur entiere ou demi-entiere, les additions sont exactes.
+        @Override
+        public void sample(PointCloud cloud, int fromSlice, int toSlice) {
+            double i = - width / 2 + fromSlice;
+            for (int slice = fromSlice; slice < toSlice && i < width / 2; ++slice, i++) {
+                for (double j =  - height / 2; j < height / 2; j++) {
+                    cloud.add(i, j);
+                }
+            }
+        }
+
+        private static int countSteps(double size) {
+            int count = 0;
+            for (double i = - size / 2; i < size / 2; i++) {
+                ++count;
+            }
+            return count;
+        }
+
+        // Le dernier point de la grille est a -size / 2 + ceil(size) - 1.
+        private BoundingBox localBounds() {
+            if (width <= 0 || height <= 0) {
+                return BoundingBox.EMPTY;
+            }
+            return new BoundingBox(
+                    - width / 2 - margin, - height / 2 - margin,
+                    - width / 2 + Math.ceil(width) - 1 + margin, - height / 2 + Math.ceil(height) - 1 + margin);
+        }
+
+        @Override
+        public BoundingBox getBounds(AffineTransform transform) {
+            return transform.apply(localBounds());
+        }
+
+        @Override
+        public ShapeGeometry inflate(double margin) {
+            return new Geometry(width, height, this.margin + margin);
+        }
+
+        // Intersection de la droite avec les deux bandes du rectangle.
+        @Override
+        public int clip(double ox, double oy, double dx, double dy, double[] intervals) {
+            BoundingBox box = localBounds();
+            if (box.isEmpty()) {
+                return 0;
+            }
+            double from = Double.NEGATIVE_INFINITY;
+            double to = Double.POSITIVE_INFINITY;
+            if (dx == 0.0) {
+                if (ox < box.getMinX() || ox > box.getMaxX()) {
+                    return 0;
+                }
+            } else {
+                double t1 = (box.getMinX() - ox) / dx;
+                double t2 = (box.getMaxX() - ox) / dx;
+                from = Math.max(from, Math.min(t1, t2));
+                to = Math.min(to, Math.max(t1, t2));
+            }
+            if (dy == 0.0) {
+                if (oy < box.getMinY() || oy > box.getMaxY()) {
+                    return 0;
+                }
+            } else {
+                double t1 = (box.getMinY() - oy) / dy;
+                double t2 = (box.getMaxY() - oy) / dy;
+                from = Math.max(from, Math.min(t1, t2));
+                to = Math.min(to, Math.max(t1, t2));
+            }
+            if (from > to) {
+                return 0;
+            }
+            intervals[0] = from;
+            intervals[1] = to;
+            return 1;
+        }
     }
 }
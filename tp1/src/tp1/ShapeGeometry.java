@@ -0,0 +1,31 @@
+package tp1;
+
+// Description analytique d'une forme de base, dans son repere local. Une forme qui
+// garde sa geometrie n'a pas besoin d'enumerer ses points: elle est decoupee en
+// segments horizontaux (spans) directement au moment du rendu.
+public interface ShapeGeometry {
+    // Ajoute au nuage les points que le constructeur de la forme aurait crees.
+    default void sample(PointCloud cloud) {
+        sample(cloud, 0, sliceCount());
+    }
+
+    // L'echantillonnage est decoupe en tranches independantes (colonnes, angles, ...)
+    // pour pouvoir etre reparti entre plusieurs threads; voir ParallelSampler.
+    int sliceCount();
+
+    // Nombre de points (au plus) d'une tranche.
+    int pointsPerSlice();
+
+    // Ajoute au nuage les points des tranches [fromSlice, toSlice[, dans l'ordre de sample.
+    void sample(PointCloud cloud, int fromSlice, int toSlice);
+
+    // Retourne la boite englobante de la forme une fois la transformation appliquee.
+    BoundingBox getBounds(AffineTransform transform);
+
+    // Retourne la meme forme, agrandie d'une marge de chaque cote.
+    ShapeGeometry inflate(double margin);
+
+    // Intersecte la droite (ox, oy) + t * (dx, dy) avec la forme. Les intervalles de t
+    // a l'interieur sont ecrits par paires dans intervals; retourne le nombre d'intervalles (au plus 2).
+    int clip(double ox, double oy, double dx, double dy, double[] intervals);
+}
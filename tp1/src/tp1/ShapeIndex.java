@@ -0,0 +1,179 @@
+package tp1;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Index spatial des formes placees: une grille uniforme de cellules carrees, ou chaque
+// cellule garde les formes dont la boite englobante la touche. Une requete ne regarde
+// que les formes des cellules qu'elle touche, sans parcourir tous les points.
+// Les formes sont identifiees par leur ordre d'ajout (0, 1, 2, ...). Les pixels sont
+// ceux que TileRenderer dessine avec la meme marge.
+public class ShapeIndex {
+    public static final int DEFAULT_CELL_SIZE = 128;
+
+    private final int margin;
+    private final int cellSize;
+    private final Map<Long, List<Integer>> cells = new HashMap<>();
+    private final List<BoundingBox> bounds = new ArrayList<>();
+    // Forme gardee pour calculer ses pixels a la premiere requete, ou null une fois calcules
+    // (ou si seule la boite est indexee).
+    private final List<BaseShape> shapes = new ArrayList<>();
+    private final List<PixelSet> coverages = new ArrayList<>();
+
+    public ShapeIndex(int margin) {
+        this(margin, DEFAULT_CELL_SIZE);
+    }
+
+    public ShapeIndex(int margin, int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("La taille des cellules doit etre positive: " + cellSize);
+        }
+        this.margin = margin;
+        this.cellSize = cellSize;
+    }
+
+    // Ajoute la forme et retourne son identifiant. Ses pixels sont calcules a la premiere
+    // requete qui en a besoin: la forme ne doit plus etre modifiee.
+    public int add(BaseShape shape) {
+        return add(shape.getBounds(margin), shape, null);
+    }
+
+    // Ajoute seulement la boite englobante des pixels d'une forme dessinee ailleurs (voir
+    // LetterPlacer en mode streaming): ni la forme ni ses pixels ne sont gardes. L'entree compte
+    // pour overlapping et collides(BoundingBox), mais pas pour shapeAt et collides(BaseShape).
+    public int add(BoundingBox box) {
+        return add(box, null, null);
+    }
+
+    private int add(BoundingBox box, BaseShape shape, PixelSet coverage) {
+        int id = bounds.size();
+        bounds.add(box);
+        shapes.add(shape);
+        coverages.add(coverage);
+        if (!box.isEmpty()) {
+            for (int cy = cell(box.getMinY()); cy <= cell(box.getMaxY()); ++cy) {
+                for (int cx = cell(box.getMinX()); cx <= cell(box.getMaxX()); ++cx) {
+                    cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>()).add(id);
+                }
+            }
+        }
+        return id;
+    }
+
+    public int size() {
+        return bounds.size();
+    }
+
+    // Boite englobante des pixels dessines pour la forme.
+    public BoundingBox getBounds(int id) {
+        return bounds.get(id);
+    }
+
+    // Retourne la forme dessinee au pixel (x, y), ou -1. Si plusieurs formes couvrent le
+    // pixel, c'est la derniere ajoutee, celle qui est dessinee par-dessus les autres.
+    public int shapeAt(int x, int y) {
+        List<Integer> candidates = cells.get(key(cell(x), cell(y)));
+        if (candidates == null) {
+            return -1;
+        }
+        for (int i = candidates.size() - 1; i >= 0; --i) {
+            int id = candidates.get(i);
+            if (bounds.get(id).contains(x, y)) {
+                PixelSet coverage = getCoverage(id);
+                if (coverage != null && coverage.contains(x, y)) {
+                    return id;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Retourne, en ordre croissant, les formes dont la boite englobante touche la boite donnee.
+    public List<Integer> overlapping(BoundingBox box) {
+        List<Integer> found = new ArrayList<>();
+        if (box.isEmpty()) {
+            return found;
+        }
+        for (int cy = cell(box.getMinY()); cy <= cell(box.getMaxY()); ++cy) {
+            for (int cx = cell(box.getMinX()); cx <= cell(box.getMaxX()); ++cx) {
+                List<Integer> candidates = cells.get(key(cx, cy));
+                if (candidates == null) {
+                    continue;
+                }
+                for (int id : candidates) {
+                    if (bounds.get(id).intersects(box)) {
+                        found.add(id);
+                    }
+                }
+            }
+        }
+        // Une forme qui touche plusieurs cellules de la boite est trouvee plusieurs fois: une
+        // fois triees, ses copies se suivent et sont retirees sans memoire par forme indexee.
+        found.sort(null);
+        int distinct = 0;
+        for (int i = 0; i < found.size(); ++i) {
+            if (distinct == 0 || !found.get(i).equals(found.get(distinct - 1))) {
+                found.set(distinct++, found.get(i));
+            }
+        }
+        found.subList(distinct, found.size()).clear();
+        return found;
+    }
+
+    // Indique si la boite touche la boite englobante d'une forme deja placee.
+    public boolean collides(BoundingBox box) {
+        return !overlapping(box).isEmpty();
+    }
+
+    // Indique si la forme, dessinee a sa position, partagerait un pixel avec une forme deja placee.
+    public boolean collides(BaseShape shape) {
+        List<Integer> candidates = overlapping(shape.getBounds(margin));
+        if (candidates.isEmpty()) {
+            return false;
+        }
+        PixelSet coverage = coverageOf(shape);
+        for (int id : candidates) {
+            PixelSet placed = getCoverage(id);
+            if (placed != null && placed.intersects(coverage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Pixels de la forme, ou null si seule sa boite est indexee.
+    private synchronized PixelSet getCoverage(int id) {
+        PixelSet coverage = coverages.get(id);
+        if (coverage == null && shapes.get(id) != null) {
+            coverage = coverageOf(shapes.get(id));
+            coverages.set(id, coverage);
+            shapes.set(id, null);
+        }
+        return coverage;
+    }
+
+    // Pixels dessines par TileRenderer pour la forme: ses segments et un carre autour de chaque point.
+    private PixelSet coverageOf(BaseShape shape) {
+        PixelSet coverage = new PixelSet();
+        shape.rasterize(margin,
+                coverage::addRow,
+                (x, y) -> {
+                    int px = (int) Math.round(x);
+                    int py = (int) Math.round(y);
+                    for (int row = py - margin; row <= py + margin; ++row) {
+                        coverage.addRow(row, px - margin, px + margin);
+                    }
+                });
+        return coverage;
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
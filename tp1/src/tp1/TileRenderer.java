@@ -0,0 +1,132 @@
+package tp1;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Dessine des formes en decoupant le canevas en tuiles rendues en parallele (fork/join).
+// Chaque tuile ecrit directement dans le raster (tableau de pixels d'une image, fichier
+// projete en memoire, ...), en se limitant a ses propres bornes: aucune tuile n'ecrit
+// dans les pixels d'une autre.
+public class TileRenderer {
+    private static final int TILE_SIZE = 128;
+    private final int margin;
+
+    // margin: nombre de pixels ajoutes autour de chaque point et de chaque forme analytique.
+    public TileRenderer(int margin) {
+        this.margin = margin;
+    }
+
+    // Cree une image de la taille donnee et y dessine chaque forme avec sa couleur.
+    public BufferedImage render(List<BaseShape> shapes, int[] colors, int width, int height) {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        render(shapes, colors, new IntPixelRaster(img));
+        return img;
+    }
+
+    // Dessine les formes dans pixels (ligne par ligne, width pixels par ligne).
+    public void render(List<BaseShape> shapes, int[] colors, int[] pixels, int width, int height) {
+        render(shapes, colors, new IntPixelRaster(pixels, width, height));
+    }
+
+    // Dessine les formes dans le raster. Les formes sont dessinees dans l'ordre de la
+    // liste: une forme recouvre celles qui la precedent.
+    public void render(List<BaseShape> shapes, int[] colors, PixelRaster raster) {
+        // Les transformations en attente sont appliquees avant de lancer les tuiles: les
+        // formes ne sont plus modifiees pendant que les tuiles les lisent.
+        BoundingBox[] bounds = new BoundingBox[shapes.size()];
+        BoundingBox region = BoundingBox.EMPTY;
+        for (int i = 0; i < bounds.length; ++i) {
+            shapes.get(i).prepareForRendering();
+            bounds[i] = shapes.get(i).getBounds(margin);
+            region = region.union(bounds[i]);
+        }
+        if (region.isEmpty()) {
+            return;
+        }
+        // Seules les tuiles touchees par au moins une forme sont creees.
+        int fromX = (int) Math.max(Math.floor(region.getMinX()), 0);
+        int fromY = (int) Math.max(Math.floor(region.getMinY()), 0);
+        int toX = (int) Math.min(Math.ceil(region.getMaxX()) + 1, raster.getWidth());
+        int toY = (int) Math.min(Math.ceil(region.getMaxY()) + 1, raster.getHeight());
+        if (fromX < toX && fromY < toY) {
+            ForkJoinPool.commonPool().invoke(
+                    new TileTask(shapes, bounds, colors, raster, fromX, fromY, toX, toY));
+        }
+    }
+
+    private class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<BaseShape> shapes;
+        private final BoundingBox[] bounds;
+        private final int[] colors;
+        private final PixelRaster raster;
+        // Bornes de la tuile: [fromX, toX[ x [fromY, toY[
+        private final int fromX, fromY, toX, toY;
+
+        TileTask(List<BaseShape> shapes, BoundingBox[] bounds, int[] colors, PixelRaster raster,
+                 int fromX, int fromY, int toX, int toY) {
+            this.shapes = shapes;
+            this.bounds = bounds;
+            this.colors = colors;
+            this.raster = raster;
+            this.fromX = fromX;
+            this.fromY = fromY;
+            this.toX = toX;
+            this.toY = toY;
+        }
+
+        @Override
+        protected void compute() {
+            int tileWidth = toX - fromX;
+            int tileHeight = toY - fromY;
+            if (tileWidth > TILE_SIZE && tileWidth >= tileHeight) {
+                int middle = fromX + tileWidth / 2;
+                invokeAll(split(fromX, fromY, middle, toY), split(middle, fromY, toX, toY));
+            } else if (tileHeight > TILE_SIZE) {
+                int middle = fromY + tileHeight / 2;
+                invokeAll(split(fromX, fromY, toX, middle), split(fromX, middle, toX, toY));
+            } else {
+                renderTile();
+            }
+        }
+
+        private TileTask split(int fromX, int fromY, int toX, int toY) {
+            return new TileTask(shapes, bounds, colors, raster, fromX, fromY, toX, toY);
+        }
+
+        private void renderTile() {
+            BoundingBox tile = new BoundingBox(fromX, fromY, toX - 1, toY - 1);
+            for (int i = 0; i < shapes.size(); ++i) {
+                if (!bounds[i].intersects(tile)) {
+                    continue;
+                }
+                int color = colors[i];
+                shapes.get(i).rasterize(margin, fromY, toY - 1,
+                        (y, spanFromX, spanToX) -> fillRow(y, spanFromX, spanToX, color),
+                        (x, y) -> fillSquare((int) Math.round(x), (int) Math.round(y), color));
+            }
+        }
+
+        // Dessine un carre de cote 2 * margin + 1 centre sur le point, coupe aux bornes de la tuile.
+        private void fillSquare(int x, int y, int color) {
+            int lastY = Math.min(y + margin, toY - 1);
+            for (int row = Math.max(y - margin, fromY); row <= lastY; ++row) {
+                fillRow(row, x - margin, x + margin, color);
+            }
+        }
+
+        private void fillRow(int y, int spanFromX, int spanToX, int color) {
+            if (y < fromY || y >= toY) {
+                return;
+            }
+            int from = Math.max(spanFromX, fromX);
+            int to = Math.min(spanToX, toX - 1);
+            if (from <= to) {
+                raster.fillRow(y, from, to, color);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package tests;
+
+import tp2.Cache;
+
+public class CacheTester {
+    public static Double start (){
+        double total = 0;
+
+        total += Corrector.executeUnitTest("lruEvictsLeastRecentlyUsed", CacheTester::lruEvictsLeastRecentlyUsed, 1.0);
+        total += Corrector.executeUnitTest("weightIsBounded", CacheTester::weightIsBounded, 1.0);
+        total += Corrector.executeUnitTest("tinyLfuKeepsFrequentKeys", CacheTester::tinyLfuKeepsFrequentKeys, 1.0);
+
+        return total;
+    }
+
+    public static boolean lruEvictsLeastRecentlyUsed(){
+        Cache<String, Integer> cache = new Cache<String, Integer>(3, Cache.Policy.LRU);
+
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        Integer value = cache.get("a"); // b is now the least recently used key
+        cache.put("d", 4);
+
+        Cache.Stats stats = cache.getStats();
+        return value == 1 && cache.size() == 3 && cache.get("b") == null && cache.get("c") == 3
+                && stats.getHitCount() == 1 && stats.getMissCount() == 0 && stats.getEvictionCount() == 1
+                && cache.getStats().getMissCount() == 1;
+    }
+
+    public static boolean weightIsBounded(){
+        Cache<Integer, Integer> cache = new Cache<Integer, Integer>(100, (key, value) -> value, Cache.Policy.W_TINY_LFU);
+
+        boolean bounded = true;
+        for (int i = 0; i < 1000 && bounded; ++i){
+            cache.put(i % 50, i % 30);
+            cache.get(i % 7);
+            bounded = cache.weight() <= 100;
+        }
+
+        // An entry heavier than the whole cache is never kept
+        cache.put(-1, 101);
+        Integer loaded = cache.get(-2, key -> 10);
+
+        return bounded && cache.get(-1) == null && loaded == 10;
+    }
+
+    public static boolean tinyLfuKeepsFrequentKeys(){
+        Cache<Integer, Integer> cache = new Cache<Integer, Integer>(100, Cache.Policy.W_TINY_LFU);
+
+        for (int round = 0; round < 10; ++round){
+            for (int i = 0; i < 50; ++i){
+                cache.get(i, key -> key);
+            }
+        }
+
+        // A scan over many keys seen once must not flush the frequently used ones
+        for (int i = 1000; i < 2000; ++i){
+            cache.get(i, key -> key);
+        }
+
+        int kept = 0;
+        for (int i = 0; i < 50; ++i){
+            kept += cache.get(i) != null ? 1 : 0;
+        }
+        return kept >= 45 && cache.size() <= 100;
+    }
+}
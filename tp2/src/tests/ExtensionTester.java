@@ -0,0 +1,23 @@
+package tests;
+
+/**
+ * Checks of the extensions built on top of the lab: the other LinkedHashMap strategies,
+ * its iteration orders and Cache. They are not part of the lab's grade (see Corrector):
+ * each check is worth one point.
+ * Usage: java tests.ExtensionTester
+ */
+public final class ExtensionTester {
+
+    public static void main(String[] args) {
+        Corrector.executeTester("ExtensionTester", ExtensionTester::start, 7.0);
+    }
+
+    public static Double start() {
+        Double subTotal = 0.0;
+
+        subTotal += Corrector.executeTester("LinkedHashMapTester", LinkedHashMapTester::startExtensions, 4.0);
+        subTotal += Corrector.executeTester("CacheTester", CacheTester::start, 3.0);
+
+        return subTotal;
+    }
+}
@@ -28,6 +28,21 @@ public class LinkedHashMapTester {
         return total;
     }
 
+    /**
+     * Checks of the strategies and orderings added to the lab's map; not graded (see ExtensionTester)
+     */
+    public static Double startExtensions (){
+        double total = 0;
+
+        total += Corrector.executeUnitTest("openAddressingHandlesCollisions", LinkedHashMapTester::openAddressingHandlesCollisions, 1.0);
+        total += Corrector.executeUnitTest("incrementalRehashWorksProperly", LinkedHashMapTester::incrementalRehashWorksProperly, 1.0);
+
+        total += Corrector.executeUnitTest("iterationFollowsInsertionOrder", LinkedHashMapTester::iterationFollowsInsertionOrder, 1.0);
+        total += Corrector.executeUnitTest("accessOrderRemovesEldest", LinkedHashMapTester::accessOrderRemovesEldest, 1.0);
+
+        return total;
+    }
+
     public static boolean putReturnsNullIfNoOldValue(){
         LinkedHashMap<String, Integer> map = new LinkedHashMap<String, Integer>();
         Integer value = map.put("myKey", 1);
@@ -201,6 +216,106 @@ public class LinkedHashMapTester {
         return rehashWorks;
     }
 
+    public static boolean openAddressingHandlesCollisions(){
+        LinkedHashMap<KeyMock, Integer> map = new LinkedHashMap<KeyMock, Integer>(4, LinkedHashMap.Strategy.OPEN_ADDRESSING);
+        int n = 15;
+
+        for (int i = 0; i < n ; ++i){
+            String index = String.valueOf(i);
+            map.put(new KeyMock("myKey" + index), i);
+        }
+
+        // Removing keys in the middle of the probe run must not hide the following ones
+        boolean removesWork = true;
+        for (int i = 0; i < n && removesWork; i += 2){
+            String index = String.valueOf(i);
+            Integer removedValue = map.remove(new KeyMock("myKey" + index));
+            removesWork = removedValue != null && removedValue.equals(i);
+        }
+
+        boolean lookupsWork = map.size() == n / 2;
+        for (int i = 0; i < n && lookupsWork; ++i){
+            String index = String.valueOf(i);
+            Integer value = map.get(new KeyMock("myKey" + index));
+            lookupsWork = i % 2 == 0 ? value == null && !map.containsKey(new KeyMock("myKey" + index)) : value != null && value.equals(i);
+        }
+
+        return removesWork && lookupsWork && map.put(new KeyMock("myKey1"), 100) == 1 && map.get(new KeyMock("myKey1")) == 100;
+    }
+
+    public static boolean incrementalRehashWorksProperly(){
+        LinkedHashMap<String, Integer> map = new LinkedHashMap<String, Integer>(10, LinkedHashMap.Strategy.INCREMENTAL_CHAINING);
+        int n = 200;
+
+        // Every put or remove may land in the middle of a rehash: keys must stay reachable in both tables
+        boolean rehashWorks = true;
+        for (int i = 0; i < n && rehashWorks; ++i){
+            map.put("myKey" + i, i);
+            if (i % 2 == 1)
+                rehashWorks = map.remove("myKey" + (i - 1)) == i - 1;
+            Integer value = map.get("myKey" + i);
+            int lastOdd = i % 2 == 1 ? i : i - 1;
+            rehashWorks = rehashWorks && value != null && value == i && (lastOdd < 0 || map.containsKey("myKey" + lastOdd));
+        }
+
+        for (int i = 0; i < n && rehashWorks; ++i){
+            Integer value = map.get("myKey" + i);
+            rehashWorks = i % 2 == 0 ? value == null : value != null && value == i;
+        }
+
+        return rehashWorks && map.size() == n / 2 && map.getCapacity() == 320;
+    }
+
+    public static boolean iterationFollowsInsertionOrder(){
+        boolean orderKept = true;
+        for (LinkedHashMap.Strategy strategy : LinkedHashMap.Strategy.values()) {
+            LinkedHashMap<String, Integer> map = new LinkedHashMap<String, Integer>(10, strategy);
+            int n = 15;
+
+            // Rehashing and removals must not change the order of the remaining keys
+            for (int i = 0; i < n ; ++i){
+                map.put("myKey" + i, i);
+            }
+            map.remove("myKey0");
+            map.remove("myKey7");
+            map.put("myKey3", 30);
+
+            int expected = 1;
+            for (LinkedHashMap.Entry<String, Integer> entry : map){
+                if (expected == 7)
+                    ++expected;
+                Integer expectedValue = expected == 3 ? 30 : expected;
+                orderKept = orderKept && entry.getKey().equals("myKey" + expected) && entry.getValue().equals(expectedValue);
+                ++expected;
+            }
+            orderKept = orderKept && expected == n && map.getEldest().getKey().equals("myKey1");
+        }
+        return orderKept;
+    }
+
+    public static boolean accessOrderRemovesEldest(){
+        LinkedHashMap<String, Integer> map = new LinkedHashMap<String, Integer>(10, LinkedHashMap.Strategy.CHAINING, true) {
+            @Override
+            protected boolean removeEldestEntry(LinkedHashMap.Entry<String, Integer> eldest) {
+                return size() > 3;
+            }
+        };
+
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("c", 3);
+        map.get("a");    // b is now the least recently used key
+        map.put("d", 4); // evicts b
+
+        StringBuilder order = new StringBuilder();
+        for (LinkedHashMap.Entry<String, Integer> entry : map){
+            order.append(entry.getKey());
+        }
+
+        LinkedHashMap.Entry<String, Integer> eldest = map.removeEldest();
+        return order.toString().equals("cad") && !map.containsKey("b") && eldest.getKey().equals("c") && map.size() == 2;
+    }
+
     static class KeyMock {
         private String key;
 
@@ -0,0 +1,244 @@
+package tests;
+
+import tp2.LinkedHashMap;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Throughput comparison of every LinkedHashMap strategy against java.util.HashMap.
+ * Every case is warmed up, then timed over several fixed-length iterations; the best
+ * time per operation and the average bytes allocated per operation are printed.
+ * Keys are visited in a shuffled order so that large maps actually miss the cache.
+ * A second section times every put while a map grows, to show the pauses caused by rehashing.
+ * Usage: java tests.MapBenchmark [filter] ; only cases whose name contains filter are run.
+ */
+public final class MapBenchmark {
+    private static final long WARMUP_NANOS = 500_000_000L;
+    private static final int ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 200_000_000L;
+    private static final int[] SIZES = { 1_000, 1_000_000 };
+    private static final int LATENCY_SIZE = 1_000_000;
+    private static final int LATENCY_ROUNDS = 5;
+
+    // Keeps the JIT from discarding unused results
+    private static volatile long sink;
+
+    /**
+     * Common view of the maps under test
+     */
+    private interface Target {
+        Integer put(String key, Integer value);
+        Integer get(String key);
+        Integer remove(String key);
+    }
+
+    /**
+     * One timed operation; returns the number of map operations it performed
+     */
+    private interface Operation {
+        long run();
+    }
+
+    private static final class Case {
+        final String name;
+        final Operation operation;
+
+        Case(String name, Operation operation) {
+            this.name = name;
+            this.operation = operation;
+        }
+    }
+
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+        System.out.println(String.format(Locale.ROOT, "%-40s %12s %12s", "case", "ns/op", "bytes/op"));
+        for (int size : SIZES) {
+            for (Case benchmark : cases(size)) {
+                if (benchmark.name.contains(filter)) {
+                    measure(benchmark);
+                }
+            }
+        }
+
+        String[] keys = new String[LATENCY_SIZE];
+        for (int i = 0; i < LATENCY_SIZE; ++i) {
+            keys[i] = "key" + i;
+        }
+        shuffle(keys);
+        System.out.println(String.format(Locale.ROOT, "%-40s %10s %10s %10s %10s", "case", "p50 ns", "p99 ns", "p99.9 ns", "max ns"));
+        for (LinkedHashMap.Strategy strategy : LinkedHashMap.Strategy.values()) {
+            String name = caseName(strategy) + ".putLatency/" + LATENCY_SIZE;
+            if (name.contains(filter)) {
+                measureLatency(name, keys, () -> of(new LinkedHashMap<String, Integer>(strategy)));
+            }
+        }
+        String name = "java.util.HashMap.putLatency/" + LATENCY_SIZE;
+        if (name.contains(filter)) {
+            measureLatency(name, keys, () -> of(new HashMap<String, Integer>()));
+        }
+    }
+
+    private static List<Case> cases(int size) {
+        String[] keys = new String[size];
+        String[] missing = new String[size];
+        for (int i = 0; i < size; ++i) {
+            keys[i] = "key" + i;
+            missing[i] = "missing" + i;
+        }
+        shuffle(keys);
+
+        List<Case> cases = new ArrayList<>();
+        for (LinkedHashMap.Strategy strategy : LinkedHashMap.Strategy.values()) {
+            addCases(cases, caseName(strategy), size, keys, missing,
+                    () -> of(new LinkedHashMap<String, Integer>(strategy)));
+        }
+        addCases(cases, "java.util.HashMap", size, keys, missing,
+                () -> of(new HashMap<String, Integer>()));
+        return cases;
+    }
+
+    private static void addCases(List<Case> cases, String name, int size, String[] keys, String[] missing,
+                                 Supplier<Target> factory) {
+        Target filled = fill(factory.get(), keys);
+        Integer value = 1;
+        cases.add(new Case(name + ".put/" + size, () -> {
+            fill(factory.get(), keys);
+            return keys.length;
+        }));
+        cases.add(new Case(name + ".getHit/" + size, () -> {
+            long found = 0;
+            for (String key : keys) {
+                found += filled.get(key) != null ? 1 : 0;
+            }
+            sink = found;
+            return keys.length;
+        }));
+        cases.add(new Case(name + ".getMiss/" + size, () -> {
+            long found = 0;
+            for (String key : missing) {
+                found += filled.get(key) != null ? 1 : 0;
+            }
+            sink = found;
+            return missing.length;
+        }));
+        cases.add(new Case(name + ".removePut/" + size, () -> {
+            long found = 0;
+            for (String key : keys) {
+                found += filled.remove(key) != null ? 1 : 0;
+                filled.put(key, value);
+            }
+            sink = found;
+            return 2L * keys.length;
+        }));
+    }
+
+    /**
+     * @return The strategy name in camel case, e.g. openAddressing for OPEN_ADDRESSING
+     */
+    private static String caseName(LinkedHashMap.Strategy strategy) {
+        StringBuilder name = new StringBuilder();
+        for (String word : strategy.name().toLowerCase(Locale.ROOT).split("_")) {
+            name.append(name.length() == 0 ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1));
+        }
+        return name.toString();
+    }
+
+    private static Target fill(Target target, String[] keys) {
+        Integer value = 1;
+        for (String key : keys) {
+            target.put(key, value);
+        }
+        return target;
+    }
+
+    private static void shuffle(String[] keys) {
+        List<String> list = new ArrayList<>(List.of(keys));
+        Collections.shuffle(list, new Random(42));
+        list.toArray(keys);
+    }
+
+    private static Target of(LinkedHashMap<String, Integer> map) {
+        return new Target() {
+            public Integer put(String key, Integer value) { return map.put(key, value); }
+            public Integer get(String key) { return map.get(key); }
+            public Integer remove(String key) { return map.remove(key); }
+        };
+    }
+
+    private static Target of(HashMap<String, Integer> map) {
+        return new Target() {
+            public Integer put(String key, Integer value) { return map.put(key, value); }
+            public Integer get(String key) { return map.get(key); }
+            public Integer remove(String key) { return map.remove(key); }
+        };
+    }
+
+    private static void measure(Case benchmark) {
+        runFor(benchmark.operation, WARMUP_NANOS);
+        double bestNanos = Double.MAX_VALUE;
+        double bytes = 0;
+        for (int i = 0; i < ITERATIONS; ++i) {
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            long operations = runFor(benchmark.operation, ITERATION_NANOS);
+            long elapsed = System.nanoTime() - start;
+            long allocated = allocatedBytes() - allocatedBefore;
+            bestNanos = Math.min(bestNanos, (double) elapsed / operations);
+            bytes += (double) allocated / operations / ITERATIONS;
+        }
+        System.out.println(String.format(Locale.ROOT, "%-40s %12.1f %12.1f", benchmark.name, bestNanos, bytes));
+    }
+
+    /**
+     * Fills fresh maps while timing each put; the last round is reported,
+     * the previous ones only warm up the JIT
+     */
+    private static void measureLatency(String name, String[] keys, Supplier<Target> factory) {
+        long[] latencies = new long[keys.length];
+        Integer value = 1;
+        for (int round = 0; round < LATENCY_ROUNDS; ++round) {
+            Target target = factory.get();
+            for (int i = 0; i < keys.length; ++i) {
+                long start = System.nanoTime();
+                target.put(keys[i], value);
+                latencies[i] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(latencies);
+        System.out.println(String.format(Locale.ROOT, "%-40s %10d %10d %10d %10d", name,
+                percentile(latencies, 0.5), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), latencies[latencies.length - 1]));
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(fraction * (sorted.length - 1)))];
+    }
+
+    private static long runFor(Operation operation, long nanos) {
+        long operations = 0;
+        long end = System.nanoTime() + nanos;
+        do {
+            operations += operation.run();
+        } while (System.nanoTime() < end);
+        return operations;
+    }
+
+    /**
+     * @return Bytes allocated by the current thread, or 0 if the JVM does not track them
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
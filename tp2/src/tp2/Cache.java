@@ -0,0 +1,376 @@
+package tp2;
+
+import java.util.function.Function;
+
+/**
+ * Bounded cache built on access-ordered LinkedHashMaps. The cache holds at most a
+ * maximum number of entries, or a maximum total weight when a Weigher is given, and
+ * evicts entries according to its Policy. Every operation is O(1): evictions always
+ * take the eldest entry of a segment.
+ * Null keys and values are not supported, since get returns null on a miss.
+ */
+public class Cache<KeyType, DataType> {
+
+    private static final int SEGMENT_CAPACITY = 20;
+    private static final double WINDOW_SHARE = 0.01;    // Part of the weight given to the window
+    private static final double PROTECTED_SHARE = 0.8;  // Part of the main weight given to protected
+
+    /**
+     * Eviction policy, chosen at construction
+     */
+    public enum Policy {
+        /** Evicts the least recently used entry */
+        LRU,
+        /**
+         * Window TinyLFU: new entries go through a small LRU window; when they leave it,
+         * they only enter the main segments if they were accessed more often than the
+         * entry they would evict, so one pass over many cold keys cannot flush the cache
+         */
+        W_TINY_LFU
+    }
+
+    /**
+     * Computes the weight of an entry, counted against the maximum weight of the cache
+     */
+    public interface Weigher<KeyType, DataType> {
+        long weigh(KeyType key, DataType value);
+    }
+
+    /**
+     * Snapshot of the counters of a cache
+     */
+    public static final class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final long evictionWeight;
+
+        Stats(long hitCount, long missCount, long evictionCount, long evictionWeight) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.evictionWeight = evictionWeight;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        public long getEvictionWeight() {
+            return evictionWeight;
+        }
+
+        /**
+         * @return The fraction of lookups that were hits (1 if there were none)
+         */
+        public double getHitRate() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 1.0 : (double) hitCount / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{hits=" + hitCount + ", misses=" + missCount
+                    + ", evictions=" + evictionCount + ", evictedWeight=" + evictionWeight + "}";
+        }
+    }
+
+    /**
+     * Value stored in the segments, with the weight it was given when inserted
+     */
+    private static final class Item<DataType> {
+        DataType value;
+        long weight;
+
+        Item(DataType value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private final long maximum;
+    private final Weigher<? super KeyType, ? super DataType> weigher;
+    private final long windowMaximum;
+    private final long mainMaximum;
+    private final long protectedMaximum;
+    private final FrequencySketch sketch; // null for LRU
+
+    // New entries enter the window. With W_TINY_LFU, the entries admitted out of the window
+    // enter probation, and move to protected when they are accessed again.
+    private LinkedHashMap<KeyType, Item<DataType>> window;
+    private LinkedHashMap<KeyType, Item<DataType>> probation;
+    private LinkedHashMap<KeyType, Item<DataType>> protectedSegment;
+    private long windowWeight = 0;
+    private long probationWeight = 0;
+    private long protectedWeight = 0;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+    private long evictionWeight = 0;
+
+    /**
+     * @param maximumEntries Maximum number of entries held by the cache
+     * @param policy Eviction policy
+     */
+    public Cache(long maximumEntries, Policy policy) {
+        this(maximumEntries, (key, value) -> 1, policy);
+    }
+
+    /**
+     * @param maximumWeight Maximum total weight of the entries held by the cache
+     * @param weigher Weight of each entry; must not be negative
+     * @param policy Eviction policy
+     */
+    public Cache(long maximumWeight, Weigher<? super KeyType, ? super DataType> weigher, Policy policy) {
+        if (maximumWeight <= 0)
+            throw new IllegalArgumentException("Maximum must be positive: " + maximumWeight);
+        maximum = maximumWeight;
+        this.weigher = weigher;
+        if (policy == Policy.W_TINY_LFU) {
+            windowMaximum = Math.max(1, (long) (maximumWeight * WINDOW_SHARE));
+            mainMaximum = maximumWeight - windowMaximum;
+            protectedMaximum = (long) (mainMaximum * PROTECTED_SHARE);
+            sketch = new FrequencySketch(maximumWeight);
+        } else {
+            windowMaximum = maximumWeight;
+            mainMaximum = 0;
+            protectedMaximum = 0;
+            sketch = null;
+        }
+        createSegments();
+    }
+
+    private void createSegments() {
+        window = new LinkedHashMap<>(SEGMENT_CAPACITY, LinkedHashMap.Strategy.CHAINING, true);
+        probation = new LinkedHashMap<>(SEGMENT_CAPACITY, LinkedHashMap.Strategy.CHAINING, true);
+        protectedSegment = new LinkedHashMap<>(SEGMENT_CAPACITY, LinkedHashMap.Strategy.CHAINING, true);
+    }
+
+    public int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    /**
+     * @return The total weight of the entries held by the cache
+     */
+    public long weight() {
+        return windowWeight + probationWeight + protectedWeight;
+    }
+
+    public long getMaximum() {
+        return maximum;
+    }
+
+    public Stats getStats() {
+        return new Stats(hitCount, missCount, evictionCount, evictionWeight);
+    }
+
+    /**
+     * Finds the value attached to a key, and records the access
+     * @param key Key which we want to have its value
+     * @return DataType instance attached to key (null on a miss)
+     */
+    public DataType get(KeyType key) {
+        if (sketch != null)
+            sketch.increment(key);
+
+        Item<DataType> item = find(key);
+        if (item == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return item.value;
+    }
+
+    /**
+     * Finds the value attached to a key, computing and caching it on a miss
+     * @param key Key which we want to have its value
+     * @param loader Computes the value of a missing key; a null result is not cached
+     * @return DataType instance attached to key
+     */
+    public DataType get(KeyType key, Function<? super KeyType, ? extends DataType> loader) {
+        DataType value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null)
+                put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Assigns a value to a key, then evicts entries until the cache fits its maximum
+     * @param key Key which will have its value assigned or reassigned
+     * @param value Value to cache
+     */
+    public void put(KeyType key, DataType value) {
+        if (value == null)
+            throw new NullPointerException("Null values cannot be cached");
+        long weight = weigher.weigh(key, value);
+        if (weight < 0)
+            throw new IllegalArgumentException("Negative weight for " + key + ": " + weight);
+        if (sketch != null)
+            sketch.increment(key);
+
+        Item<DataType> item = find(key);
+        if (item != null) {
+            addWeight(key, weight - item.weight);
+            item.value = value;
+            item.weight = weight;
+        } else {
+            window.put(key, new Item<>(value, weight));
+            windowWeight += weight;
+        }
+        evict();
+    }
+
+    /**
+     * Removes the entry attached to a key, without counting an eviction
+     * @return The removed value (null if none existed)
+     */
+    public DataType remove(KeyType key) {
+        Item<DataType> item = window.remove(key);
+        if (item != null) {
+            windowWeight -= item.weight;
+            return item.value;
+        }
+        item = probation.remove(key);
+        if (item != null) {
+            probationWeight -= item.weight;
+            return item.value;
+        }
+        item = protectedSegment.remove(key);
+        if (item != null) {
+            protectedWeight -= item.weight;
+            return item.value;
+        }
+        return null;
+    }
+
+    /**
+     * Removes every entry and releases the tables that held them. Statistics are kept.
+     */
+    public void clear() {
+        createSegments();
+        windowWeight = 0;
+        probationWeight = 0;
+        protectedWeight = 0;
+        if (sketch != null)
+            sketch.clear();
+    }
+
+    /**
+     * Looks a key up in every segment and records the access in its segment's order.
+     * An entry found in probation is promoted to protected.
+     */
+    private Item<DataType> find(KeyType key) {
+        Item<DataType> item = window.get(key);
+        if (item != null)
+            return item;
+        item = protectedSegment.get(key);
+        if (item != null)
+            return item;
+        item = probation.remove(key);
+        if (item != null) {
+            probationWeight -= item.weight;
+            promote(key, item);
+        }
+        return item;
+    }
+
+    /**
+     * Moves an entry into protected, demoting the least recently used protected
+     * entries to probation if protected gets too heavy
+     */
+    private void promote(KeyType key, Item<DataType> item) {
+        protectedSegment.put(key, item);
+        protectedWeight += item.weight;
+        while (protectedWeight > protectedMaximum && protectedSegment.size() > 1) {
+            LinkedHashMap.Entry<KeyType, Item<DataType>> demoted = protectedSegment.removeEldest();
+            protectedWeight -= demoted.getValue().weight;
+            probation.put(demoted.getKey(), demoted.getValue());
+            probationWeight += demoted.getValue().weight;
+        }
+    }
+
+    /**
+     * Adds a weight difference to the segment holding a key (which was just accessed)
+     */
+    private void addWeight(KeyType key, long delta) {
+        if (window.containsKey(key))
+            windowWeight += delta;
+        else if (protectedSegment.containsKey(key))
+            protectedWeight += delta;
+        else
+            probationWeight += delta;
+    }
+
+    /**
+     * Moves the entries overflowing the window to the main segments, then evicts
+     * from the main segments if the cache is still too heavy
+     */
+    private void evict() {
+        while (windowWeight > windowMaximum) {
+            LinkedHashMap.Entry<KeyType, Item<DataType>> candidate = window.removeEldest();
+            windowWeight -= candidate.getValue().weight;
+            admit(candidate.getKey(), candidate.getValue());
+        }
+        while (probationWeight + protectedWeight > mainMaximum) {
+            LinkedHashMap.Entry<KeyType, Item<DataType>> victim = eldestOfMain();
+            removeFromMain(victim.getKey());
+            countEviction(victim.getValue());
+        }
+    }
+
+    /**
+     * TinyLFU admission: a candidate leaving the window takes the place of the least
+     * recently used main entries only if it is accessed more often than each of them
+     */
+    private void admit(KeyType key, Item<DataType> candidate) {
+        if (candidate.weight > mainMaximum) {
+            countEviction(candidate);
+            return;
+        }
+        while (probationWeight + protectedWeight + candidate.weight > mainMaximum) {
+            LinkedHashMap.Entry<KeyType, Item<DataType>> victim = eldestOfMain();
+            if (sketch.frequency(key) <= sketch.frequency(victim.getKey())) {
+                countEviction(candidate);
+                return;
+            }
+            removeFromMain(victim.getKey());
+            countEviction(victim.getValue());
+        }
+        probation.put(key, candidate);
+        probationWeight += candidate.weight;
+    }
+
+    /**
+     * @return The next main entry to evict: the eldest of probation, or of protected if probation is empty
+     */
+    private LinkedHashMap.Entry<KeyType, Item<DataType>> eldestOfMain() {
+        return probation.isEmpty() ? protectedSegment.getEldest() : probation.getEldest();
+    }
+
+    private void removeFromMain(KeyType key) {
+        Item<DataType> item = probation.remove(key);
+        if (item != null)
+            probationWeight -= item.weight;
+        else
+            protectedWeight -= protectedSegment.remove(key).weight;
+    }
+
+    private void countEviction(Item<DataType> item) {
+        evictionCount++;
+        evictionWeight += item.weight;
+    }
+}
@@ -0,0 +1,93 @@
+package tp2;
+
+import java.util.Arrays;
+
+/**
+ * Approximate access counts used by the TinyLFU admission policy of Cache.
+ * This is a count-min sketch of 4-bit counters packed sixteen per long: each key
+ * increments one counter in each of four rows and its frequency is the smallest of them.
+ * Once enough increments were recorded, every counter is halved so that old
+ * popularity fades away.
+ */
+class FrequencySketch {
+
+    private static final int MAX_COUNT = 15;
+    private static final long HALF_MASK = 0x7777777777777777L; // Clears the high bit of each counter
+    private static final int[] SEEDS = { 0x97CB3127, 0xB492B66F, 0x9AE16A3B, 0xC2B2AE35 };
+    private static final int SAMPLE_FACTOR = 10;
+    private static final int MAX_TABLE_SIZE = 1 << 24;
+
+    private final long[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions = 0;
+
+    /**
+     * @param expectedEntries Number of entries the cache is expected to hold
+     */
+    FrequencySketch(long expectedEntries) {
+        int size = (int) Math.min(MAX_TABLE_SIZE, Math.max(16, expectedEntries));
+        size = Integer.highestOneBit(size - 1) << 1;
+        table = new long[size];
+        mask = size - 1;
+        sampleSize = SAMPLE_FACTOR * size;
+    }
+
+    /**
+     * @return The estimated number of recent accesses to the key, at most MAX_COUNT
+     */
+    int frequency(Object key) {
+        int hash = LinkedHashMap.hash(key);
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < SEEDS.length; ++row) {
+            int h = rowHash(hash, row);
+            frequency = Math.min(frequency, (int) ((table[h & mask] >>> shift(h)) & MAX_COUNT));
+        }
+        return frequency;
+    }
+
+    /**
+     * Records one access to the key
+     */
+    void increment(Object key) {
+        int hash = LinkedHashMap.hash(key);
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; ++row) {
+            int h = rowHash(hash, row);
+            int index = h & mask;
+            int shift = shift(h);
+            if (((table[index] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize)
+            age();
+    }
+
+    /**
+     * Halves every counter
+     */
+    private void age() {
+        for (int i = 0; i < table.length; ++i)
+            table[i] = (table[i] >>> 1) & HALF_MASK;
+        additions /= 2;
+    }
+
+    void clear() {
+        Arrays.fill(table, 0L);
+        additions = 0;
+    }
+
+    private static int rowHash(int hash, int row) {
+        int h = hash * SEEDS[row];
+        return h ^ (h >>> 15);
+    }
+
+    /**
+     * The top four bits of a row hash pick one of the sixteen counters of a long
+     */
+    private static int shift(int rowHash) {
+        return (rowHash >>> 28) << 2;
+    }
+}
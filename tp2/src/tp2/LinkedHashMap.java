@@ -1,35 +1,137 @@
 package tp2;
 
 import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
-public class LinkedHashMap<KeyType, DataType> {
+/**
+ * Hash map whose entries are also chained in a doubly-linked list, in insertion order
+ * or in access order. Iterating over the map follows that list, from eldest to newest.
+ */
+public class LinkedHashMap<KeyType, DataType> implements Iterable<LinkedHashMap.Entry<KeyType, DataType>> {
 
     private static final double COMPRESSION_FACTOR = 2; // 50%
     private static final int DEFAULT_CAPACITY = 20;
     private static final int CAPACITY_INCREASE_FACTOR = 2;
+    // Buckets moved by each put or remove during an incremental rehash. The map doubles
+    // at 50% load, so four buckets per put empty the old table before the next doubling.
+    private static final int REHASH_STEP = 4;
+
+    /**
+     * Storage engine of the map, chosen at construction
+     */
+    public enum Strategy {
+        /** One linked list of nodes per bucket */
+        CHAINING,
+        /** Keys and values in parallel arrays, collisions resolved by linear probing */
+        OPEN_ADDRESSING,
+        /**
+         * Same as CHAINING, but growing keeps the old buckets alive and each put or
+         * remove moves a few of them, so no single operation pays for the whole rehash
+         */
+        INCREMENTAL_CHAINING
+    }
+
+    /**
+     * Key-value pair returned while iterating over the map
+     */
+    public interface Entry<KeyType, DataType> {
+        KeyType getKey();
+        DataType getValue();
+
+        /**
+         * Replaces the value of the entry, without changing its place in the iteration order
+         * @return The previous value
+         */
+        DataType setValue(DataType value);
+    }
 
     private Node<KeyType, DataType>[] map;
+    private Node<KeyType, DataType>[] oldMap; // Buckets still being moved by an incremental rehash
+    private int migrated;                     // Buckets of oldMap already moved into map
+    private final boolean incremental;
+    private OpenAddressingTable<KeyType, DataType> table; // null unless OPEN_ADDRESSING
+    private Node<KeyType, DataType> head; // Eldest node of the iteration order (chaining only)
+    private Node<KeyType, DataType> tail; // Newest node of the iteration order (chaining only)
+    private final boolean accessOrder;
+    private int modCount = 0; // Changes to the iteration order, checked by iterators
     private int capacity;
     private int size = 0;
 
     public LinkedHashMap() {
-        capacity = DEFAULT_CAPACITY;
-        map = new Node[DEFAULT_CAPACITY];
+        this(DEFAULT_CAPACITY, Strategy.CHAINING);
     }
 
     public LinkedHashMap(int capacity) {
+        this(capacity, Strategy.CHAINING);
+    }
+
+    public LinkedHashMap(Strategy strategy) {
+        this(DEFAULT_CAPACITY, strategy);
+    }
+
+    public LinkedHashMap(int capacity, Strategy strategy) {
+        this(capacity, strategy, false);
+    }
+
+    /**
+     * @param capacity Initial logical capacity
+     * @param strategy Storage engine
+     * @param accessOrder If true, get and put move their entry to the end of the iteration
+     *                    order (least recently used first); otherwise keys keep the order
+     *                    in which they were first inserted
+     */
+    public LinkedHashMap(int capacity, Strategy strategy, boolean accessOrder) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
         this.capacity = capacity;
-        map = new Node[capacity];
+        this.accessOrder = accessOrder;
+        incremental = strategy == Strategy.INCREMENTAL_CHAINING;
+        if (strategy == Strategy.OPEN_ADDRESSING)
+            table = new OpenAddressingTable<>(capacity);
+        else
+            map = new Node[bucketsFor(capacity)];
     }
 
     /**
-     * Finds the index attached to a particular key
-     * @param key Value used to access to a particular instance of a DataType within map
-     * @return The index value attached to a particular key
+     * Spreads the high bits of the key's hash code over the low bits, which are
+     * the only ones used to pick a slot in a power-of-two table
+     * @param key Key to hash
+     * @return The spread hash code
      */
-    private int getIndex(KeyType key){
-        int keyHash = key.hashCode() % capacity;
-        return keyHash < 0 ? -keyHash : keyHash;
+    static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Number of buckets backing a logical capacity: the smallest power of two that
+     * is not smaller, so that a bucket is selected with a mask instead of a modulo
+     */
+    private static int bucketsFor(int capacity) {
+        return capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * Finds the index attached to a particular hash
+     * @param buckets Bucket array to index
+     * @param hash Spread hash of a key (see hash)
+     * @return The index of the bucket holding that key
+     */
+    private static int getIndex(Node<?, ?>[] buckets, int hash){
+        return hash & (buckets.length - 1);
+    }
+
+    /**
+     * During an incremental rehash, a key stays in oldMap until its bucket is moved
+     * @param hash Spread hash of a key
+     * @return The bucket array holding that key
+     */
+    private Node<KeyType, DataType>[] bucketsOf(int hash) {
+        if (oldMap != null && getIndex(oldMap, hash) >= migrated)
+            return oldMap;
+        return map;
     }
 
     private boolean shouldRehash() {
@@ -39,40 +141,63 @@ public class LinkedHashMap<KeyType, DataType> {
     /**
      * Increases capacity by CAPACITY_INCREASE_FACTOR (multiplication) and
      * reassigns all contained values within the new map
+     * (in INCREMENTAL_CHAINING, only starts moving them: see migrate)
      */
     private void rehash() {
         // On double la capacité
         capacity *= CAPACITY_INCREASE_FACTOR;
 
-        // On créé une nouvelle map vide avec la nouvelle capacité
-        Node<KeyType, DataType>[] map2 = new Node[capacity];
-        for (Node<KeyType, DataType> mapCell : map) {
-
-            if (mapCell == null)
-                continue;
-
-            Node node = mapCell;
-            do {
-                // Trouve le nouvel index pour la nouvelle capacité
-                int newIdx = getIndex((KeyType) node.key);
-
-                if (map2[newIdx] == null)
-                    map2[newIdx] = node;
-                else {
-                    Node neighborNode = map2[newIdx];
-
-                    while (neighborNode.next != null)
-                        neighborNode = neighborNode.next;
+        if (table != null) {
+            table.resize(capacity);
+            return;
+        }
 
-                    neighborNode.next = node;
-                }
-                node = node.next;
+        // Termine un rehash incremental precedent avant d'en commencer un autre
+        if (oldMap != null)
+            migrate(oldMap.length);
 
-            } while (node != null);
+        // On créé une nouvelle map vide avec la nouvelle capacité
+        oldMap = map;
+        migrated = 0;
+        map = new Node[bucketsFor(capacity)];
+        if (!incremental)
+            migrate(oldMap.length);
+    }
 
+    /**
+     * Moves the next buckets of oldMap into map, and drops oldMap once it is empty
+     * @param count Number of buckets to move
+     */
+    private void migrate(int count) {
+        int end = Math.min(migrated + count, oldMap.length);
+        for (; migrated < end; ++migrated) {
+            Node<KeyType, DataType> node = oldMap[migrated];
+            oldMap[migrated] = null;
+            while (node != null) {
+                Node<KeyType, DataType> next = node.next;
+
+                // Le hash est garde dans le noeud: on l'insere en tete de sa nouvelle liste
+                int newIdx = getIndex(map, node.hash);
+                node.next = map[newIdx];
+                map[newIdx] = node;
+
+                node = next;
+            }
         }
+        if (migrated == oldMap.length)
+            oldMap = null;
+    }
 
-        map = map2;
+    /**
+     * Walks the bucket of a key once
+     * @return The node holding the key (null if not found)
+     */
+    private Node<KeyType, DataType> findNode(Object key, int hash) {
+        Node<KeyType, DataType>[] buckets = bucketsOf(hash);
+        Node<KeyType, DataType> node = buckets[getIndex(buckets, hash)];
+        while (node != null && (node.hash != hash || !node.key.equals(key)))
+            node = node.next;
+        return node;
     }
 
     public int size() {
@@ -93,23 +218,11 @@ public class LinkedHashMap<KeyType, DataType> {
      * @return if key is already used in map
      */
     public boolean containsKey(KeyType key) {
-        // 1) Use getIndex to determine which list to traverse
-        int idx = getIndex(key);
-
-        // 2) Verify if there's actually a list
-        if (map[idx] != null){
-            Node node = map[idx];
+        int hash = hash(key);
+        if (table != null)
+            return table.find(key, hash) >= 0;
 
-            do {
-                if (node.key.equals(key))
-                        return true;
-                node = node.next;
-            } while (node != null);
-
-            return false;
-        }
-        // No list at corresponding index thus no item with that key
-        return false;
+        return findNode(key, hash) != null;
     }
 
     /**
@@ -118,22 +231,22 @@ public class LinkedHashMap<KeyType, DataType> {
      * @return DataType instance attached to key (null if not found)
      */
     public DataType get(KeyType key) {
-
-        if (!containsKey(key)) {
-            return null;
+        int hash = hash(key);
+        if (table != null) {
+            int slot = table.find(key, hash);
+            if (slot < 0)
+                return null;
+            if (accessOrder)
+                moveToLast(slot);
+            return table.valueAt(slot);
         }
 
-        Node node = map[getIndex(key)];
-        DataType data = null;
-        do {
-            if (node.key.equals(key)){
-                data = (DataType) node.data;
-                break;
-            }
-            node = node.next;
-        } while (node != null);
-
-        return data;
+        Node<KeyType, DataType> node = findNode(key, hash);
+        if (node == null)
+            return null;
+        if (accessOrder)
+            moveToLast(node);
+        return node.data;
     }
 
     /**
@@ -145,60 +258,155 @@ public class LinkedHashMap<KeyType, DataType> {
 
         if (shouldRehash())
             rehash();
+        else if (oldMap != null)
+            migrate(REHASH_STEP);
+
+        int hash = hash(key);
+        if (table != null) {
+            int slot = table.find(key, hash);
+            if (slot >= 0) {
+                if (accessOrder)
+                    moveToLast(slot);
+                return table.setValue(slot, value);
+            }
+            table.insert(-slot - 1, key, hash, value);
+            afterInsert();
+            return null;
+        }
 
-        int idx = getIndex(key);
-
-        if (map[idx] == null){
-            map[idx] = new Node<>(key,value);
-        } else {
-            Node<KeyType,DataType> node = map[idx];
-            do {
-                if (node.key.equals(key)){
-                    DataType oldData = node.data;
-                    node.data = value;
-                    return oldData;
-                }
-                node = node.next;
-            } while (node != null);
-            Node<KeyType,DataType> newNode = new Node<>(key,value);
-            newNode.next = map[idx];
-            map[idx] = newNode;
+        Node<KeyType, DataType> node = findNode(key, hash);
+        if (node != null) {
+            if (accessOrder)
+                moveToLast(node);
+            DataType oldData = node.data;
+            node.data = value;
+            return oldData;
         }
-        size++;
+
+        Node<KeyType, DataType>[] buckets = bucketsOf(hash);
+        int idx = getIndex(buckets, hash);
+        Node<KeyType, DataType> newNode = new Node<>(key, hash, value);
+        newNode.next = buckets[idx];
+        buckets[idx] = newNode;
+        linkLast(newNode);
+        afterInsert();
         return null;
     }
 
+    /**
+     * Counts a new entry and lets removeEldestEntry evict the eldest one
+     */
+    private void afterInsert() {
+        size++;
+        modCount++;
+        Entry<KeyType, DataType> eldest = getEldest();
+        if (removeEldestEntry(eldest))
+            remove(eldest.getKey());
+    }
+
+    /**
+     * Called by put after a new key was inserted. Subclasses may return true to have
+     * the eldest entry removed, e.g. to bound the size of a cache; by default nothing
+     * is ever removed.
+     * @param eldest The first entry of the iteration order (possibly the one just inserted)
+     * @return If eldest should be removed
+     */
+    protected boolean removeEldestEntry(Entry<KeyType, DataType> eldest) {
+        return false;
+    }
+
+    /**
+     * @return The first entry of the iteration order (null if the map is empty)
+     */
+    public Entry<KeyType, DataType> getEldest() {
+        if (table != null)
+            return table.first() < 0 ? null : new SlotEntry(table.first());
+        return head;
+    }
+
+    /**
+     * Removes the first entry of the iteration order
+     * @return The removed entry (null if the map is empty)
+     */
+    public Entry<KeyType, DataType> removeEldest() {
+        Entry<KeyType, DataType> eldest = getEldest();
+        if (eldest != null)
+            remove(eldest.getKey());
+        return eldest;
+    }
+
+    private void linkLast(Node<KeyType, DataType> node) {
+        node.before = tail;
+        node.after = null;
+        if (tail != null)
+            tail.after = node;
+        else
+            head = node;
+        tail = node;
+    }
+
+    private void unlink(Node<KeyType, DataType> node) {
+        if (node.before != null)
+            node.before.after = node.after;
+        else
+            head = node.after;
+        if (node.after != null)
+            node.after.before = node.before;
+        else
+            tail = node.before;
+    }
+
+    private void moveToLast(Node<KeyType, DataType> node) {
+        if (node != tail) {
+            unlink(node);
+            linkLast(node);
+            modCount++;
+        }
+    }
+
+    private void moveToLast(int slot) {
+        table.moveToLast(slot);
+        modCount++;
+    }
+
     /**
      * Removes the node attached to a key
      * @param key Key which is contained in the node to remove
      * @return Old DataType instance at key (null if none existed)
      */
     public DataType remove(KeyType key) {
+        int hash = hash(key);
+        if (table != null) {
+            int slot = table.find(key, hash);
+            if (slot < 0)
+                return null;
+            size--;
+            modCount++;
+            return table.removeAt(slot);
+        }
 
-        if (!containsKey(key))
-            return null;
+        if (oldMap != null)
+            migrate(REHASH_STEP);
 
-        int idx = getIndex(key);
-        Node<KeyType,DataType> node = map[idx];
-        Node<KeyType,DataType> nextNode = node.next;
-        DataType oldData = null;
-        if (node.key.equals(key)){
-            oldData = node.data;
-            map[idx] = nextNode;
-        } else {
-            while (nextNode != null){
-
-                if (nextNode.key.equals(key)){
-                    oldData = nextNode.data;
-                    node.next = nextNode.next;
-                    break;
-                }
-                node = nextNode;
-                nextNode = node.next;
-            }
+        Node<KeyType, DataType>[] buckets = bucketsOf(hash);
+        int idx = getIndex(buckets, hash);
+        Node<KeyType, DataType> previous = null;
+        Node<KeyType, DataType> node = buckets[idx];
+        while (node != null && (node.hash != hash || !node.key.equals(key))) {
+            previous = node;
+            node = node.next;
         }
+        if (node == null)
+            return null;
+
+        if (previous == null)
+            buckets[idx] = node.next;
+        else
+            previous.next = node.next;
+        unlink(node);
         size--;
-        return oldData;
+        modCount++;
+        return node.data;
     }
 
     /**
@@ -207,21 +415,171 @@ public class LinkedHashMap<KeyType, DataType> {
     public void clear() {
         // Test asks for a map of same initial size and filled
         // with null objects
-        Arrays.fill(map,null);
+        if (table != null)
+            table.clear();
+        else {
+            Arrays.fill(map,null);
+            oldMap = null;
+            head = null;
+            tail = null;
+        }
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Iterates from the eldest to the newest entry. The iterator supports remove and
+     * fails with a ConcurrentModificationException if the map is changed otherwise
+     * (in access order, get changes the order too).
+     */
+    @Override
+    public Iterator<Entry<KeyType, DataType>> iterator() {
+        return table != null ? new SlotIterator() : new NodeIterator();
+    }
+
+    private abstract class OrderIterator implements Iterator<Entry<KeyType, DataType>> {
+        int expectedModCount = modCount;
+        Entry<KeyType, DataType> last; // Entry returned by the last call to next
+
+        void checkForChanges() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public void remove() {
+            if (last == null)
+                throw new IllegalStateException();
+            checkForChanges();
+            beforeRemove();
+            LinkedHashMap.this.remove(last.getKey());
+            afterRemove();
+            last = null;
+            expectedModCount = modCount;
+        }
+
+        void beforeRemove() {
+        }
+
+        void afterRemove() {
+        }
     }
 
+    private final class NodeIterator extends OrderIterator {
+        private Node<KeyType, DataType> next = head;
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<KeyType, DataType> next() {
+            checkForChanges();
+            if (next == null)
+                throw new NoSuchElementException();
+            last = next;
+            next = next.after;
+            return last;
+        }
+    }
+
+    private final class SlotIterator extends OrderIterator {
+        private int next = table.first();
+        private KeyType nextKey;
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        public Entry<KeyType, DataType> next() {
+            checkForChanges();
+            if (next < 0)
+                throw new NoSuchElementException();
+            last = new SlotEntry(next);
+            next = table.next(next);
+            return last;
+        }
 
-    static class Node<KeyType, DataType> {
+        // Removing an entry may shift the following ones to other slots
+        @Override
+        void beforeRemove() {
+            nextKey = next >= 0 ? table.keyAt(next) : null;
+        }
+
+        @Override
+        void afterRemove() {
+            next = nextKey != null ? table.find(nextKey, hash(nextKey)) : -1;
+        }
+    }
+
+    /**
+     * Entry of the open addressing table. Entries can move between slots,
+     * so it keeps the key and looks its slot up again to change the value.
+     */
+    private final class SlotEntry implements Entry<KeyType, DataType> {
+        private final KeyType key;
+        private DataType value;
+
+        SlotEntry(int slot) {
+            key = table.keyAt(slot);
+            value = table.valueAt(slot);
+        }
+
+        @Override
+        public KeyType getKey() {
+            return key;
+        }
+
+        @Override
+        public DataType getValue() {
+            return value;
+        }
+
+        @Override
+        public DataType setValue(DataType value) {
+            int slot = table.find(key, hash(key));
+            if (slot < 0)
+                throw new IllegalStateException("Entry was removed from the map");
+            this.value = value;
+            return table.setValue(slot, value);
+        }
+    }
+
+
+    static class Node<KeyType, DataType> implements Entry<KeyType, DataType> {
         final KeyType key;
+        final int hash; // Spread hash of the key, compared before equals and reused by rehash
         DataType data;
-        Node next; // Pointer to the next node within a Linked List
+        Node<KeyType, DataType> next; // Pointer to the next node within a Linked List
+        Node<KeyType, DataType> before, after; // Neighbours in the iteration order
 
-        Node(KeyType key, DataType data)
+        Node(KeyType key, int hash, DataType data)
         {
             this.key = key;
+            this.hash = hash;
             this.data = data;
             next = null;
         }
+
+        @Override
+        public KeyType getKey() {
+            return key;
+        }
+
+        @Override
+        public DataType getValue() {
+            return data;
+        }
+
+        @Override
+        public DataType setValue(DataType value) {
+            DataType oldData = data;
+            data = value;
+            return oldData;
+        }
     }
 }
 
@@ -0,0 +1,220 @@
+package tp2;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing storage used by LinkedHashMap when built with Strategy.OPEN_ADDRESSING.
+ * Keys, values and key hashes are kept in parallel arrays and collisions are resolved by
+ * linear probing, so a lookup reads consecutive slots instead of following node pointers.
+ * Removal shifts the following entries of the probe run back instead of leaving tombstones.
+ * Occupied slots are also chained in a doubly-linked list (slot indices in before / after)
+ * that keeps the iteration order of the map.
+ */
+class OpenAddressingTable<KeyType, DataType> {
+
+    private KeyType[] keys;
+    private DataType[] values;
+    private int[] hashes;
+    private int[] before;
+    private int[] after;
+    private int head = -1; // First slot of the iteration order (-1 if empty)
+    private int tail = -1;
+    private int mask;
+
+    /**
+     * @param capacity Logical capacity of the map; the table always keeps more slots than that
+     */
+    OpenAddressingTable(int capacity) {
+        allocate(capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        int slots = slotsFor(capacity);
+        keys = (KeyType[]) new Object[slots];
+        values = (DataType[]) new Object[slots];
+        hashes = new int[slots];
+        before = new int[slots];
+        after = new int[slots];
+        head = -1;
+        tail = -1;
+        mask = slots - 1;
+    }
+
+    /**
+     * Smallest power of two strictly greater than capacity. The map never holds more than
+     * capacity / COMPRESSION_FACTOR + 1 entries, so at least one slot always stays empty
+     * and every probe run ends.
+     */
+    private static int slotsFor(int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, 1)) << 1;
+    }
+
+    /**
+     * First slot probed for a hash. Linear probing needs neighbouring hash codes (such as
+     * those of "key1", "key2", ...) to land far apart, otherwise they form one long run:
+     * the hash is multiplied by the golden ratio before being masked.
+     */
+    private int home(int hash) {
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Finds the slot holding a key
+     * @param key Key to look for
+     * @param hash Spread hash of the key (see LinkedHashMap.hash)
+     * @return The slot of the key, or -(slot where it would be inserted) - 1
+     */
+    int find(Object key, int hash) {
+        int slot = home(hash);
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && keys[slot].equals(key))
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -slot - 1;
+    }
+
+    KeyType keyAt(int slot) {
+        return keys[slot];
+    }
+
+    DataType valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Replaces the value of an occupied slot
+     * @return The previous value
+     */
+    DataType setValue(int slot, DataType value) {
+        DataType oldData = values[slot];
+        values[slot] = value;
+        return oldData;
+    }
+
+    /**
+     * Stores a new entry in the empty slot returned by find, last in iteration order
+     */
+    void insert(int slot, KeyType key, int hash, DataType value) {
+        keys[slot] = key;
+        values[slot] = value;
+        hashes[slot] = hash;
+        linkLast(slot);
+    }
+
+    /**
+     * @return The first slot in iteration order (-1 if the table is empty)
+     */
+    int first() {
+        return head;
+    }
+
+    /**
+     * @return The slot following a slot in iteration order (-1 if it is the last one)
+     */
+    int next(int slot) {
+        return after[slot];
+    }
+
+    /**
+     * Moves an occupied slot to the end of the iteration order
+     */
+    void moveToLast(int slot) {
+        if (slot != tail) {
+            unlink(slot);
+            linkLast(slot);
+        }
+    }
+
+    private void linkLast(int slot) {
+        before[slot] = tail;
+        after[slot] = -1;
+        if (tail >= 0)
+            after[tail] = slot;
+        else
+            head = slot;
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        if (before[slot] >= 0)
+            after[before[slot]] = after[slot];
+        else
+            head = after[slot];
+        if (after[slot] >= 0)
+            before[after[slot]] = before[slot];
+        else
+            tail = before[slot];
+    }
+
+    /**
+     * Moves the entry of a slot into an empty one, keeping its place in the iteration order
+     */
+    private void moveSlot(int from, int to) {
+        keys[to] = keys[from];
+        values[to] = values[from];
+        hashes[to] = hashes[from];
+        before[to] = before[from];
+        after[to] = after[from];
+        if (before[to] >= 0)
+            after[before[to]] = to;
+        else
+            head = to;
+        if (after[to] >= 0)
+            before[after[to]] = to;
+        else
+            tail = to;
+    }
+
+    /**
+     * Empties a slot and moves back the entries of the probe run that follow it,
+     * so that find never stops early on the freed slot.
+     * @return The value that was stored in the slot
+     */
+    DataType removeAt(int slot) {
+        DataType oldData = values[slot];
+        unlink(slot);
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != null) {
+            // Distance between the entry's home slot and the hole / its current slot
+            int home = home(hashes[next]);
+            if (((hole - home) & mask) < ((next - home) & mask)) {
+                moveSlot(next, hole);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = null;
+        values[hole] = null;
+        return oldData;
+    }
+
+    /**
+     * Moves every entry into a table sized for the new logical capacity, in iteration order.
+     * Stored hashes are reused, keys are never compared.
+     */
+    void resize(int capacity) {
+        KeyType[] oldKeys = keys;
+        DataType[] oldValues = values;
+        int[] oldHashes = hashes;
+        int[] oldAfter = after;
+        int oldHead = head;
+        allocate(capacity);
+        for (int i = oldHead; i >= 0; i = oldAfter[i]) {
+            int slot = home(oldHashes[i]);
+            while (keys[slot] != null)
+                slot = (slot + 1) & mask;
+            insert(slot, oldKeys[i], oldHashes[i], oldValues[i]);
+        }
+    }
+
+    void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        head = -1;
+        tail = -1;
+    }
+}